@@ -0,0 +1,45 @@
+#!/bin/bash
+# Creates a class data sharing archive for the EPD JavaFX Animator program
+#
+# A training run of one loop records the classes loaded in a dynamic AppCDS
+# archive, which bin/run.sh then maps into memory on startup. The training run
+# uses any application parameters given to this script, such as --pattern=2,
+# so that the archive includes the classes of the pattern usually displayed.
+# The archive must be recreated whenever the JDK, the JavaFX SDK, or the JAR
+# file changes. The archive includes the classes of the JavaFX modules loaded
+# from the module path, as long as the module path is the same at run time.
+trap exit INT TERM
+set -o errexit
+
+# Checks that this script was run with sudo
+if [ -z "$SUDO_USER" ]; then
+    printf "Error: This script must run as root with sudo.\n"
+    exit 1
+fi
+
+# Sets HOME to the home directory of the user who invoked sudo
+HOME=/home/$SUDO_USER
+
+# JDK and JavaFX SDK
+JAVA_HOME=$HOME/opt/jdk-15+36-jre
+JAVAFX_LIB=$HOME/lib/armv6hf-sdk/lib
+
+apphome=$HOME/src/epd-javafx
+argfile=$apphome/bin/epdargs.conf
+jarfile=$apphome/dist/epd-javafx.jar
+jsafile=$apphome/dist/epd-javafx.jsa
+logfile=$apphome/conf/logging.properties
+
+cmd="$JAVA_HOME/bin/java @$argfile --module-path=$JAVAFX_LIB \
+    -Djava.util.logging.config.file=$logfile -Dmonocle.epd.waveformMode=4"
+
+printf "\n===> Training run: %s\n" "$*"
+rm -f $jsafile
+$cmd -XX:ArchiveClassesAtExit=$jsafile -jar $jarfile $@ --loops=1
+ls -l $jsafile
+
+printf "\n===> Startup without the archive\n"
+$cmd -jar $jarfile $@ --loops=1 --startup=true
+
+printf "\n===> Startup with the archive\n"
+$cmd -XX:SharedArchiveFile=$jsafile -jar $jarfile $@ --loops=1 --startup=true
@@ -0,0 +1,142 @@
+#!/bin/bash
+# Runs the headless performance regression tests
+#
+# Each animation pattern runs under the Monocle Headless platform for a fixed
+# number of loops, with pulses at full speed, once to measure the total frame
+# rate and once to compute the checksum of the frames as displayed. Taking the
+# snapshots for the checksum slows the animation, so the two are measured in
+# separate runs. The test fails when the frame checksum differs from the
+# baseline in bin/perf.txt, or when the total frame rate drops by more than the
+# tolerance below the baseline rate for this machine. The baseline rates depend
+# on the hardware, so they are kept in dist/perf.txt rather than in the source
+# tree, and they are recorded by the first run on the machine. Run with the
+# option --record to save the measured checksums and rates as the baselines.
+# A final test runs the adaptive quality controller against the steady load of
+# the simulated display and fails unless it settles, stepping only down.
+#
+# The JavaFX SDK must include the Monocle platform, as do the SDKs built for
+# embedded devices. For other SDKs, set MONOCLE_JAR to the path of a matching
+# openjfx-monocle JAR file to patch it into the javafx.graphics module.
+trap exit INT TERM
+set -o errexit
+
+# JDK and JavaFX SDK
+JAVA_HOME=${JAVA_HOME:-$HOME/opt/jdk-15+36}
+JAVAFX_LIB=${JAVAFX_LIB:-$HOME/lib/javafx-sdk-15/lib}
+
+# Percentage drop in frame rate allowed before failing
+TOLERANCE=${TOLERANCE:-10}
+LOOPS=8
+
+apphome=$(cd "$(dirname "$0")/.." && pwd)
+jarfile=${JARFILE:-$apphome/dist/epd-javafx.jar}
+baseline=$apphome/bin/perf.txt
+rates=$apphome/dist/perf.txt
+
+names=(move sweep01 sweep02 sweep04 sweep16 image patrol)
+params=(
+    "--pattern=1"
+    "--pattern=2 --levels=1"
+    "--pattern=2 --levels=2"
+    "--pattern=2 --levels=4"
+    "--pattern=2 --levels=16"
+    "--pattern=3"
+    "--pattern=3 --patrol=true"
+)
+# Loops for measuring the frame rate, about 2,000 frames for a repeatable rate
+rateloops=(40 40 40 40 40 200 200)
+# Steady load for the adaptive quality controller, about 20 seconds
+adaptive="--pattern=2 --levels=2 --loops=2 --simulate=true --adaptive=200"
+
+cmd="$JAVA_HOME/bin/java --module-path=$JAVAFX_LIB \
+    --add-modules=javafx.graphics -Dglass.platform=Monocle \
+    -Dmonocle.platform=Headless -Dprism.order=sw \
+    -Djavafx.animation.fullspeed=true"
+if [ -n "${MONOCLE_JAR:-}" ]; then
+    cmd="$cmd --patch-module=javafx.graphics=$MONOCLE_JAR \
+        --add-exports=javafx.graphics/com.sun.glass.ui=ALL-UNNAMED"
+fi
+
+record=false
+if [ "${1:-}" = "--record" ]; then
+    record=true
+    results=$(mktemp)
+    sed -n '/^#/p' "$baseline" > "$results"
+fi
+if [ ! -f "$rates" ]; then
+    printf "===> No baseline rates in %s; recording them on this run\n" "$rates"
+    recordrates=true
+else
+    recordrates=$record
+fi
+if [ $recordrates = true ]; then
+    measured=$(mktemp)
+    printf "# Baseline frame rates for bin/perf.sh on %s\n" "$(hostname)" > "$measured"
+    printf "# name    fps\n" >> "$measured"
+fi
+
+failures=0
+for i in "${!names[@]}"; do
+    name=${names[$i]}
+    printf "===> %s: %s\n" "$name" "${params[$i]}"
+    output=$($cmd -jar "$jarfile" --width=800 --height=600 \
+        --loops=${rateloops[$i]} ${params[$i]}) || true
+    printf "%s\n" "$output"
+    fps=$(printf "%s\n" "$output" | sed -n 's/^Total rate: .* = *\([0-9.]*\) fps.*/\1/p')
+    output=$($cmd -jar "$jarfile" --width=800 --height=600 \
+        --loops=$LOOPS --checksum=true ${params[$i]}) || true
+    checksum=$(printf "%s\n" "$output" | sed -n 's/^Frame checksum: \([0-9a-f]*\).*/\1/p')
+    printf "Frame checksum: %s\n" "$checksum"
+    if [ -z "$checksum" ] || [ -z "$fps" ]; then
+        printf "FAIL: %s printed no checksum or total rate\n" "$name"
+        failures=$((failures + 1))
+        continue
+    fi
+    if [ $recordrates = true ]; then
+        printf "%-9s %s\n" "$name" "$fps" >> "$measured"
+    else
+        minimum=$(awk -v n="$name" '$1 == n {print $2}' "$rates") || true
+        if [ -z "$minimum" ]; then
+            printf "FAIL: %s has no baseline rate in %s\n" "$name" "$rates"
+            failures=$((failures + 1))
+        elif awk -v f="$fps" -v b="$minimum" -v t="$TOLERANCE" \
+            'BEGIN {exit !(f < b * (1 - t / 100))}'; then
+            printf "FAIL: %s at %s fps, baseline %s fps\n" "$name" "$fps" "$minimum"
+            failures=$((failures + 1))
+        fi
+    fi
+    if [ $record = true ]; then
+        printf "%-9s %s\n" "$name" "$checksum" >> "$results"
+    else
+        expected=$(awk -v n="$name" '$1 == n {print $2}' "$baseline") || true
+        if [ "$checksum" != "$expected" ]; then
+            printf "FAIL: %s checksum %s, expected %s\n" "$name" "$checksum" "$expected"
+            failures=$((failures + 1))
+        fi
+    fi
+done
+
+printf "===> adaptive: %s\n" "$adaptive"
+output=$($cmd -jar "$jarfile" --width=800 --height=600 $adaptive) || true
+printf "%s\n" "$output" | grep "^Quality step" || true
+down=$(printf "%s\n" "$output" | grep -c "^Quality step down") || true
+up=$(printf "%s\n" "$output" | grep -c "^Quality step up") || true
+if [ "$down" -eq 0 ] || [ "$up" -gt 0 ]; then
+    printf "FAIL: adaptive stepped down %d and up %d times\n" "$down" "$up"
+    failures=$((failures + 1))
+fi
+
+if [ $record = true ]; then
+    mv "$results" "$baseline"
+    printf "\n===> Baseline checksums saved in %s\n" "$baseline"
+fi
+if [ $recordrates = true ]; then
+    mkdir -p "$(dirname "$rates")"
+    mv "$measured" "$rates"
+    printf "\n===> Baseline rates saved in %s\n" "$rates"
+fi
+if [ $failures -gt 0 ]; then
+    printf "\n===> %d failures\n" $failures
+    exit 1
+fi
+printf "\n===> All tests passed\n"
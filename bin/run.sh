@@ -17,9 +17,16 @@ JAVAFX_LIB=$HOME/lib/armv6hf-sdk/lib
 apphome=$HOME/src/epd-javafx
 argfile=$apphome/bin/epdargs.conf
 jarfile=$apphome/dist/epd-javafx.jar
+jsafile=$apphome/dist/epd-javafx.jsa
 logfile=$apphome/conf/logging.properties
 
-$JAVA_HOME/bin/java --show-version \
+# Uses the class data sharing archive created by bin/cds.sh, if present
+cdsargs=""
+if [ -f $jsafile ]; then
+    cdsargs="-XX:SharedArchiveFile=$jsafile"
+fi
+
+$JAVA_HOME/bin/java --show-version $cdsargs \
     @$argfile --module-path=$JAVAFX_LIB \
     -Djava.util.logging.config.file=$logfile \
     -Dmonocle.epd.waveformMode=4 -jar $jarfile $@
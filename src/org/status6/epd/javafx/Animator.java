@@ -17,8 +17,8 @@
 package org.status6.epd.javafx;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import javafx.animation.AnimationTimer;
@@ -51,28 +51,29 @@ public class Animator extends Application {
     private static final double TOUCH_RADIUS_PX = 20.0;
     private static final int IMAGE_LOGGING_MINIMUM = 80;
 
-    private static final String WIDTH_KEY = "width";
-    private static final String HEIGHT_KEY = "height";
-    private static final String PATTERN_KEY = "pattern";
-    private static final String LEVELS_KEY = "levels";
-    private static final String LOOPS_KEY = "loops";
-    private static final String IMAGE_KEY = "image";
-    private static final String PATROL_KEY = "patrol";
+    private static final String CHECKSUM_KEY = "checksum";
+    private static final String STARTUP_KEY = "startup";
+    private static final String CONTROL_KEY = "control";
+    private static final String SIMULATE_KEY = "simulate";
+    private static final String TIMELINE_KEY = "timeline";
+    private static final String SOAK_KEY = "soak";
+    private static final String SAMPLE_KEY = "sample";
+    private static final String ADAPTIVE_KEY = "adaptive";
 
-    private static final int PATTERN_MOVE = 1;
-    private static final int PATTERN_SWEEP = 2;
-    private static final int PATTERN_IMAGE = 3;
-    private static final int[] PATTERNS_SUPPORTED = {PATTERN_MOVE, PATTERN_SWEEP, PATTERN_IMAGE};
-    private static final int[] LEVELS_SUPPORTED = {1, 2, 4, 16};
+    private static final String PAUSE_COMMAND = "pause";
+    private static final String RESUME_COMMAND = "resume";
+    private static final String TOGGLE_COMMAND = "toggle";
+    private static final String STATS_COMMAND = "stats";
+    private static final String QUIT_COMMAND = "quit";
 
-    private static final int PATTERN_DEFAULT = PATTERN_MOVE;
-    private static final int LEVELS_DEFAULT = 1;
-    private static final int LOOPS_DEFAULT = 2;
-    private static final String IMAGE_DEFAULT = "duke-waving.gif";
+    private static final int SOAK_MINIMUM = 0;
+    private static final int SAMPLE_MINIMUM = 1;
+    private static final int ADAPTIVE_MINIMUM = 0;
 
-    private static final int WIDTH_MINIMUM = 400;
-    private static final int HEIGHT_MINIMUM = 300;
-    private static final int LOOPS_MINIMUM = 0;
+    private static final int SOAK_DEFAULT = 0;
+    private static final int SAMPLE_DEFAULT = 60;
+    private static final int ADAPTIVE_DEFAULT = 0;
+    private static final int SECONDS_PER_MINUTE = 60;
 
     private int width;
     private int height;
@@ -81,91 +82,62 @@ public class Animator extends Application {
     private int loops;
     private String image;
     private boolean patrol;
+    private boolean analyze;
+    private boolean snap;
+    private boolean checksum;
+    private boolean startup;
+    private boolean simulate;
+    private String timeline;
+    private int soak;
+    private int sample;
+    private int adaptive;
 
+    private FrameAnalyzer analyzer;
+    private DisplayChecksum frameChecksum;
+    private EpdSimulator simulator;
+    private StartupTimer startupTimer;
+    private SoakTimer soakTimer;
+    private RateTimer rateTimer;
     private final List<AnimationTimer> timers;
     private boolean isRunning;
     private Parent root;
+    private Scene scene;
 
     private Point2D oldPoint;
     private long oldTime;
 
     /**
-     * Gets the integer value to which the specified key is mapped, or the
-     * provided default value if there is no mapping for the key.
-     *
-     * @param map the mapping of keys to values
-     * @param key the key whose associated value is to be returned
-     * @param defaultValue the default mapping of the key
-     * @return the value to which the specified key is mapped, or
-     * {@code defaultValue} if {@code map} contains no mapping for the key
-     * @throws IllegalArgumentException if the value for the key is not a number
+     * Creates a new EPD JavaFX animator.
      */
-    private static int getInteger(Map<String, String> map, String key, int defaultValue) {
-        String string = map.getOrDefault(key, Integer.toString(defaultValue));
-        try {
-            return Integer.parseInt(string);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException(String.format(
-                    "Value of %s=%s is not a number", key, string), e);
-        }
+    public Animator() {
+        timers = new ArrayList<>();
+        oldPoint = new Point2D(0, 0);
     }
 
     /**
-     * Gets the integer value to which the specified key is mapped, or the
-     * provided default value if there is no mapping for the key, while checking
-     * that the value is in the list of permitted values.
-     *
-     * @param map the mapping of keys to values
-     * @param key the key whose associated value is to be returned
-     * @param defaultValue the default mapping of the key
-     * @param list the list of permitted values
-     * @return the value to which the specified key is mapped, or
-     * {@code defaultValue} if {@code map} contains no mapping for the key
-     * @throws IllegalArgumentException if the value for the key is not in the
-     * list of permitted values
+     * Stops the animation timers and pauses the frame rate measurement and
+     * any soak test.
      */
-    private static int getInteger(Map<String, String> map, String key, int defaultValue, int... list) {
-        int value = getInteger(map, key, defaultValue);
-        boolean found = false;
-        for (int i = 0; i < list.length && !found; i++) {
-            found = value == list[i];
+    private void stopTimers() {
+        timers.forEach(AnimationTimer::stop);
+        if (rateTimer != null) {
+            rateTimer.pause();
         }
-        if (!found) {
-            throw new IllegalArgumentException(String.format(
-                    "Value of %s=%d not in %s", key, value, Arrays.toString(list)));
+        if (soakTimer != null) {
+            soakTimer.pause();
         }
-        return value;
     }
 
     /**
-     * Gets the integer value to which the specified key is mapped, or the
-     * provided default value if there is no mapping for the key, while checking
-     * that the value is at least the specified minimum.
-     *
-     * @param map the mapping of keys to values
-     * @param key the key whose associated value is to be returned
-     * @param defaultValue the default mapping of the key
-     * @param minimum the minimum permitted value
-     * @return the value to which the specified key is mapped, or
-     * {@code defaultValue} if {@code map} contains no mapping for the key
-     * @throws IllegalArgumentException if the value for the key is less than
-     * the minimum
+     * Starts the animation timers and resumes the frame rate measurement and
+     * any soak test.
      */
-    private static int getInteger(Map<String, String> map, String key, int defaultValue, int minimum) {
-        int value = getInteger(map, key, defaultValue);
-        if (value < minimum) {
-            throw new IllegalArgumentException(String.format(
-                    "Value of %s=%d must be %d or greater", key, value, minimum));
+    private void startTimers() {
+        rateTimer.resume();
+        if (soakTimer != null) {
+            soakTimer.resume();
         }
-        return value;
-    }
-
-    /**
-     * Creates a new EPD JavaFX animator.
-     */
-    public Animator() {
-        timers = new ArrayList<>();
-        oldPoint = new Point2D(0, 0);
+        timers.forEach(AnimationTimer::start);
     }
 
     /**
@@ -173,10 +145,10 @@ public class Animator extends Application {
      */
     private void toggleTimers() {
         if (isRunning == true) {
-            timers.forEach(AnimationTimer::stop);
+            stopTimers();
             isRunning = false;
         } else {
-            timers.forEach(AnimationTimer::start);
+            startTimers();
             isRunning = true;
         }
     }
@@ -237,52 +209,243 @@ public class Animator extends Application {
         }
     }
 
-    @Override
-    public void init() {
-        try {
-            Map<String, String> map = getParameters().getNamed();
-            int defaultWidth = (int) Screen.getPrimary().getVisualBounds().getWidth();
-            int defaultHeight = (int) Screen.getPrimary().getVisualBounds().getHeight();
-            width = getInteger(map, WIDTH_KEY, defaultWidth, WIDTH_MINIMUM);
-            height = getInteger(map, HEIGHT_KEY, defaultHeight, HEIGHT_MINIMUM);
-            pattern = getInteger(map, PATTERN_KEY, PATTERN_DEFAULT, PATTERNS_SUPPORTED);
-            levels = getInteger(map, LEVELS_KEY, LEVELS_DEFAULT, LEVELS_SUPPORTED);
-            loops = getInteger(map, LOOPS_KEY, LOOPS_DEFAULT, LOOPS_MINIMUM);
-            image = map.getOrDefault(IMAGE_KEY, IMAGE_DEFAULT);
-            patrol = Boolean.valueOf(map.get(PATROL_KEY));
+    /**
+     * Creates the animation for a pattern and its parameters, without changing
+     * the current animation.
+     *
+     * @param pattern the pattern of the animation
+     * @param levels the number of gray levels in the sweep pattern
+     * @param image the name of the image file in the image pattern
+     * @param patrol {@code true} for a patrol cycle in the image pattern;
+     * otherwise {@code false}
+     * @param analyzer the analyzer of the gray levels in each update
+     * @return the new animation
+     * @throws IOException if an error occurs reading the image file
+     * @throws IllegalArgumentException if the pattern is not supported
+     */
+    private RasterAnimation createAnimation(int pattern, int levels, String image, boolean patrol,
+            FrameAnalyzer analyzer) throws IOException {
+        RasterAnimation animation = null;
+        switch (pattern) {
+            case Arguments.PATTERN_MOVE:
+                animation = new CanvasAnimation(new Canvas(width, height), new MoveGenerator(width, height));
+                break;
+            case Arguments.PATTERN_SWEEP:
+                animation = new CanvasAnimation(new Canvas(width, height),
+                        new SweepGenerator(width, height, levels, analyzer));
+                break;
+            case Arguments.PATTERN_IMAGE:
+                animation = new ImageAnimation(new ImageView(), new ImageGenerator(image, patrol, analyzer));
+                break;
+            default:
+                throw new IllegalArgumentException(String.format(
+                        "Unsupported pattern: %d", pattern));
+        }
+        return animation;
+    }
 
-            FiniteAnimation animation = null;
-            int numFrames = 0;
-            int logFrames = 0;
-            switch (pattern) {
-                case PATTERN_MOVE:
-                    Canvas canvas = new Canvas(width, height);
-                    root = new Group(canvas);
-                    animation = new MoveAnimation(canvas);
-                    numFrames = animation.getNumFrames();
-                    logFrames = numFrames;
+    /**
+     * Creates the scene graph and animation timers for the animation of the
+     * current pattern and its parameters.
+     *
+     * @param animation the animation of the current pattern
+     * @param analyzer the analyzer of the gray levels in each update
+     */
+    private void createTimers(RasterAnimation animation, FrameAnalyzer analyzer) {
+        this.analyzer = analyzer;
+        timers.clear();
+        int numFrames = animation.getNumFrames();
+        int logFrames = numFrames;
+        if (pattern == Arguments.PATTERN_IMAGE) {
+            root = new StackPane(animation.getNode());
+            logFrames = Math.max(numFrames, IMAGE_LOGGING_MINIMUM);
+        } else {
+            root = new Group(animation.getNode());
+        }
+        frameChecksum = null;
+        if (checksum) {
+            frameChecksum = new DisplayChecksum(animation.getNode(),
+                    animation.getGenerator().getWidth(), numFrames * loops);
+            animation.addObserver(frameChecksum);
+        }
+        simulator = null;
+        if (simulate) {
+            simulator = new EpdSimulator(timeline == null ? null : Path.of(timeline));
+            animation.addObserver(simulator);
+        }
+        if (adaptive > 0) {
+            int fullLevels = pattern == Arguments.PATTERN_IMAGE ? FrameAnalyzer.PANEL_LEVELS : levels;
+            QualityController controller = new QualityController(animation, fullLevels, adaptive);
+            animation.addObserver(controller);
+        }
+        if (soakTimer != null) {
+            animation.addObserver(soakTimer);
+        }
+        timers.add(animation);
+        rateTimer = new RateTimer(logFrames);
+        animation.addObserver(rateTimer);
+        animation.addObserver(new ExitTimer(soakTimer == null ? numFrames * loops : 0));
+    }
+
+    /**
+     * Prints the results of the gray-level analysis, frame checksum, and
+     * simulated display, when enabled.
+     */
+    private void reportResults() {
+        if (analyzer != null && analyzer.isEnabled()) {
+            analyzer.report();
+        }
+        if (frameChecksum != null) {
+            frameChecksum.report();
+        }
+        if (simulator != null) {
+            simulator.report();
+        }
+    }
+
+    /**
+     * Replaces the current animation with a new one for the pattern and its
+     * parameters, keeping the animation timers in their started or stopped
+     * state. The new animation is created before the current one is stopped,
+     * so if the new one cannot be created, the current animation and its
+     * parameters remain unchanged.
+     *
+     * @param pattern the pattern of the new animation
+     * @param levels the number of gray levels in the sweep pattern
+     * @param loops the number of loops before terminating, or zero to loop
+     * forever
+     * @param image the name of the image file in the image pattern
+     * @param patrol {@code true} for a patrol cycle in the image pattern;
+     * otherwise {@code false}
+     * @throws IOException if an error occurs reading the image file
+     * @throws IllegalArgumentException if the pattern is not supported
+     */
+    private void replaceTimers(int pattern, int levels, int loops, String image, boolean patrol)
+            throws IOException {
+        FrameAnalyzer newAnalyzer = new FrameAnalyzer(analyze, snap);
+        RasterAnimation animation = createAnimation(pattern, levels, image, patrol, newAnalyzer);
+        if (isRunning) {
+            stopTimers();
+        }
+        reportResults();
+        this.pattern = pattern;
+        this.levels = levels;
+        this.loops = loops;
+        this.image = image;
+        this.patrol = patrol;
+        createTimers(animation, newAnalyzer);
+        scene.setRoot(root);
+        if (isRunning) {
+            startTimers();
+        }
+    }
+
+    /**
+     * Processes a command from the control channel. The commands {@code
+     * pattern}, {@code levels}, {@code loops}, {@code image}, and {@code
+     * patrol} take the same values as the corresponding application parameters
+     * and replace the current animation, unless the value is invalid or the
+     * new animation cannot be created. The commands {@code pause}, {@code
+     * resume}, and {@code toggle} stop and start the animation timers, {@code
+     * stats} prints the total frame rate so far, and {@code quit} terminates
+     * the application.
+     *
+     * @param line the command followed by its value, if any
+     */
+    private void onCommand(String line) {
+        String[] words = line.split("\\s+", 2);
+        String command = words[0];
+        String value = words.length > 1 ? words[1] : "";
+        Map<String, String> map = Map.of(command, value);
+        System.out.println(String.format("Command received: %s", line));
+        try {
+            switch (command) {
+                case Arguments.PATTERN_KEY:
+                    int newPattern = Arguments.getInteger(map, command, pattern,
+                            Arguments.PATTERNS_SUPPORTED);
+                    replaceTimers(newPattern, levels, loops, image, patrol);
+                    break;
+                case Arguments.LEVELS_KEY:
+                    int newLevels = Arguments.getInteger(map, command, levels, Arguments.LEVELS_SUPPORTED);
+                    replaceTimers(pattern, newLevels, loops, image, patrol);
+                    break;
+                case Arguments.LOOPS_KEY:
+                    int newLoops = Arguments.getInteger(map, command, loops, Arguments.LOOPS_MINIMUM);
+                    replaceTimers(pattern, levels, newLoops, image, patrol);
+                    break;
+                case Arguments.IMAGE_KEY:
+                    String newImage = value.isEmpty() ? Arguments.IMAGE_DEFAULT : value;
+                    replaceTimers(pattern, levels, loops, newImage, patrol);
+                    break;
+                case Arguments.PATROL_KEY:
+                    replaceTimers(pattern, levels, loops, image, Boolean.valueOf(value));
                     break;
-                case PATTERN_SWEEP:
-                    canvas = new Canvas(width, height);
-                    root = new Group(canvas);
-                    animation = new SweepAnimation(canvas, levels);
-                    numFrames = animation.getNumFrames();
-                    logFrames = numFrames;
+                case PAUSE_COMMAND:
+                    if (isRunning) {
+                        toggleTimers();
+                    }
                     break;
-                case PATTERN_IMAGE:
-                    ImageView view = new ImageView();
-                    root = new StackPane(view);
-                    animation = new ImageAnimation(view, image, patrol);
-                    numFrames = animation.getNumFrames();
-                    logFrames = Math.max(numFrames, IMAGE_LOGGING_MINIMUM);
+                case RESUME_COMMAND:
+                    if (!isRunning) {
+                        toggleTimers();
+                    }
+                    break;
+                case TOGGLE_COMMAND:
+                    toggleTimers();
+                    break;
+                case STATS_COMMAND:
+                    rateTimer.report();
+                    break;
+                case QUIT_COMMAND:
+                    Platform.exit();
                     break;
                 default:
                     throw new IllegalArgumentException(String.format(
-                            "Unsupported pattern: %d", pattern));
+                            "Unsupported command: %s", command));
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    @Override
+    public void init() {
+        startupTimer = new StartupTimer();
+        startupTimer.mark("init()");
+        try {
+            Map<String, String> map = getParameters().getNamed();
+            int defaultWidth = (int) Screen.getPrimary().getVisualBounds().getWidth();
+            int defaultHeight = (int) Screen.getPrimary().getVisualBounds().getHeight();
+            width = Arguments.getInteger(map, Arguments.WIDTH_KEY,
+                    defaultWidth, Arguments.WIDTH_MINIMUM);
+            height = Arguments.getInteger(map, Arguments.HEIGHT_KEY,
+                    defaultHeight, Arguments.HEIGHT_MINIMUM);
+            pattern = Arguments.getInteger(map, Arguments.PATTERN_KEY,
+                    Arguments.PATTERN_DEFAULT, Arguments.PATTERNS_SUPPORTED);
+            levels = Arguments.getInteger(map, Arguments.LEVELS_KEY,
+                    Arguments.LEVELS_DEFAULT, Arguments.LEVELS_SUPPORTED);
+            loops = Arguments.getInteger(map, Arguments.LOOPS_KEY,
+                    Arguments.LOOPS_DEFAULT, Arguments.LOOPS_MINIMUM);
+            image = map.getOrDefault(Arguments.IMAGE_KEY, Arguments.IMAGE_DEFAULT);
+            patrol = Boolean.valueOf(map.get(Arguments.PATROL_KEY));
+            analyze = Boolean.valueOf(map.get(Arguments.ANALYZE_KEY));
+            snap = Boolean.valueOf(map.get(Arguments.SNAP_KEY));
+            checksum = Boolean.valueOf(map.get(CHECKSUM_KEY));
+            startup = Boolean.valueOf(map.get(STARTUP_KEY));
+            simulate = Boolean.valueOf(map.get(SIMULATE_KEY));
+            timeline = map.get(TIMELINE_KEY);
+            soak = Arguments.getInteger(map, SOAK_KEY, SOAK_DEFAULT, SOAK_MINIMUM);
+            sample = Arguments.getInteger(map, SAMPLE_KEY, SAMPLE_DEFAULT, SAMPLE_MINIMUM);
+            adaptive = Arguments.getInteger(map, ADAPTIVE_KEY, ADAPTIVE_DEFAULT, ADAPTIVE_MINIMUM);
+            if (soak > 0) {
+                soakTimer = new SoakTimer((long) soak * SECONDS_PER_MINUTE, sample);
+            }
+            FrameAnalyzer newAnalyzer = new FrameAnalyzer(analyze, snap);
+            createTimers(createAnimation(pattern, levels, image, patrol, newAnalyzer), newAnalyzer);
+            String control = map.get(CONTROL_KEY);
+            if (control != null) {
+                new ControlChannel(Path.of(control), this::onCommand).start();
             }
-            timers.add(animation);
-            timers.add(new RateTimer(logFrames));
-            timers.add(new ExitTimer(numFrames * loops));
         } catch (IllegalArgumentException | IOException e) {
             System.err.println(e);
             Platform.exit();
@@ -291,21 +454,30 @@ public class Animator extends Application {
 
     @Override
     public void start(Stage stage) {
-        Scene scene = new Scene(root, width, height);
+        startupTimer.mark("start()");
+        scene = new Scene(root, width, height);
         scene.addEventHandler(TouchEvent.TOUCH_PRESSED, this::onTouchPressed);
         scene.addEventHandler(MouseEvent.MOUSE_PRESSED, this::onMousePressed);
         scene.addEventHandler(KeyEvent.KEY_PRESSED, this::onKeyPressed);
         stage.setTitle(STAGE_TITLE);
         stage.setScene(scene);
         stage.show();
-        timers.forEach(AnimationTimer::start);
+        startupTimer.mark("stage shown");
+        if (startup) {
+            startupTimer.start();
+        }
+        if (soakTimer != null) {
+            soakTimer.start();
+        }
+        startTimers();
         isRunning = true;
     }
 
     @Override
     public void stop() {
-        timers.forEach(AnimationTimer::stop);
+        stopTimers();
         isRunning = false;
+        reportResults();
     }
 
     /**
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility methods and constants for the named parameters of the applications,
+ * specified in the format: {@code --name=value}. The parameters shared by the
+ * {@link Animator} application and the {@link OfflineRenderer} program are
+ * defined here so that their names, defaults, and limits stay the same.
+ *
+ * @author John Neffenger
+ */
+final class Arguments {
+
+    private static final String PREFIX = "--";
+    private static final String SEPARATOR = "=";
+
+    static final String WIDTH_KEY = "width";
+    static final String HEIGHT_KEY = "height";
+    static final String PATTERN_KEY = "pattern";
+    static final String LEVELS_KEY = "levels";
+    static final String LOOPS_KEY = "loops";
+    static final String IMAGE_KEY = "image";
+    static final String PATROL_KEY = "patrol";
+    static final String ANALYZE_KEY = "analyze";
+    static final String SNAP_KEY = "snap";
+
+    static final int PATTERN_MOVE = 1;
+    static final int PATTERN_SWEEP = 2;
+    static final int PATTERN_IMAGE = 3;
+    static final int[] PATTERNS_SUPPORTED = {PATTERN_MOVE, PATTERN_SWEEP, PATTERN_IMAGE};
+    static final int[] LEVELS_SUPPORTED = {1, 2, 4, 16};
+
+    static final int PATTERN_DEFAULT = PATTERN_MOVE;
+    static final int LEVELS_DEFAULT = 1;
+    static final int LOOPS_DEFAULT = 2;
+    static final String IMAGE_DEFAULT = "duke-waving.gif";
+
+    static final int WIDTH_MINIMUM = 400;
+    static final int HEIGHT_MINIMUM = 300;
+
+    /**
+     * The minimum number of loops, where zero loops forever.
+     */
+    static final int LOOPS_MINIMUM = 0;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private Arguments() {
+    }
+
+    /**
+     * Gets the named parameters from the command-line arguments, ignoring any
+     * arguments not in the format {@code --name=value}.
+     *
+     * @param args the command-line arguments
+     * @return the mapping of parameter names to their values
+     */
+    static Map<String, String> getNamed(String[] args) {
+        Map<String, String> map = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf(SEPARATOR);
+            if (arg.startsWith(PREFIX) && index > PREFIX.length()) {
+                map.put(arg.substring(PREFIX.length(), index), arg.substring(index + 1));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Gets the integer value to which the specified key is mapped, or the
+     * provided default value if there is no mapping for the key.
+     *
+     * @param map the mapping of keys to values
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     * {@code defaultValue} if {@code map} contains no mapping for the key
+     * @throws IllegalArgumentException if the value for the key is not a number
+     */
+    static int getInteger(Map<String, String> map, String key, int defaultValue) {
+        String string = map.getOrDefault(key, Integer.toString(defaultValue));
+        try {
+            return Integer.parseInt(string);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Value of %s=%s is not a number", key, string), e);
+        }
+    }
+
+    /**
+     * Gets the integer value to which the specified key is mapped, or the
+     * provided default value if there is no mapping for the key, while checking
+     * that the value is in the list of permitted values.
+     *
+     * @param map the mapping of keys to values
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @param list the list of permitted values
+     * @return the value to which the specified key is mapped, or
+     * {@code defaultValue} if {@code map} contains no mapping for the key
+     * @throws IllegalArgumentException if the value for the key is not in the
+     * list of permitted values
+     */
+    static int getInteger(Map<String, String> map, String key, int defaultValue, int... list) {
+        int value = getInteger(map, key, defaultValue);
+        boolean found = false;
+        for (int i = 0; i < list.length && !found; i++) {
+            found = value == list[i];
+        }
+        if (!found) {
+            throw new IllegalArgumentException(String.format(
+                    "Value of %s=%d not in %s", key, value, Arrays.toString(list)));
+        }
+        return value;
+    }
+
+    /**
+     * Gets the integer value to which the specified key is mapped, or the
+     * provided default value if there is no mapping for the key, while checking
+     * that the value is at least the specified minimum.
+     *
+     * @param map the mapping of keys to values
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @param minimum the minimum permitted value
+     * @return the value to which the specified key is mapped, or
+     * {@code defaultValue} if {@code map} contains no mapping for the key
+     * @throws IllegalArgumentException if the value for the key is less than
+     * the minimum
+     */
+    static int getInteger(Map<String, String> map, String key, int defaultValue, int minimum) {
+        int value = getInteger(map, key, defaultValue);
+        if (value < minimum) {
+            throw new IllegalArgumentException(String.format(
+                    "Value of %s=%d must be %d or greater", key, value, minimum));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.nio.IntBuffer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.paint.Color;
+
+/**
+ * An animation timer that displays the frames of a generator on a canvas,
+ * writing only the parts of the region modified by each frame. The moving box,
+ * for example, writes the new box and the erased old box as two small
+ * rectangles instead of their bounding rectangle, which spans the full width
+ * of the screen when the box wraps to the next row. A part filled with a
+ * single opaque color is drawn as a filled rectangle rather than written as
+ * pixels, which is faster on the canvas.
+ *
+ * @author John Neffenger
+ */
+class CanvasAnimation extends RasterAnimation {
+
+    private static final int OPAQUE = 0xFF;
+
+    private final GraphicsContext graphics;
+    private final PixelWriter writer;
+    private final PixelFormat<IntBuffer> format;
+    private final int width;
+
+    /**
+     * Creates a new canvas animation.
+     *
+     * @param canvas the canvas on which to draw the animation
+     * @param generator the generator of the animation frames
+     */
+    CanvasAnimation(Canvas canvas, FrameGenerator generator) {
+        super(canvas, generator);
+        graphics = canvas.getGraphicsContext2D();
+        writer = graphics.getPixelWriter();
+        format = PixelFormat.getIntArgbPreInstance();
+        width = generator.getWidth();
+    }
+
+    /**
+     * Checks whether the part of the raster is filled with a single opaque
+     * color.
+     *
+     * @param raster the pixels in the INT_ARGB format
+     * @param part the rectangular part of the raster
+     * @return {@code true} if every pixel in the part is the same opaque
+     * color; otherwise {@code false}
+     */
+    private boolean isSolid(int[] raster, DirtyRegion part) {
+        int offset = part.getOffset(width);
+        int argb = raster[offset];
+        boolean solid = argb >>> 24 == OPAQUE;
+        for (int y = 0; y < part.getHeight() && solid; y++) {
+            int start = offset + y * width;
+            for (int i = start; i < start + part.getWidth() && solid; i++) {
+                solid = raster[i] == argb;
+            }
+        }
+        return solid;
+    }
+
+    @Override
+    void show(int[] raster, DirtyRegion region) {
+        for (DirtyRegion part : region.getParts()) {
+            if (isSolid(raster, part)) {
+                int argb = raster[part.getOffset(width)];
+                graphics.setFill(Color.rgb(argb >> 16 & 0xFF, argb >> 8 & 0xFF, argb & 0xFF));
+                graphics.fillRect(part.getX(), part.getY(), part.getWidth(), part.getHeight());
+            } else {
+                writer.setPixels(part.getX(), part.getY(), part.getWidth(), part.getHeight(),
+                        format, raster, part.getOffset(width), width);
+            }
+        }
+    }
+}
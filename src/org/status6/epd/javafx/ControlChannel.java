@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * A local control channel that reads commands, one per line, from a named pipe
+ * and passes each command to its handler on the JavaFX Application Thread.
+ * The named pipe is reopened each time a writer closes it, so commands can be
+ * sent from the shell with, for example, {@code echo stats > /tmp/epd-control}
+ * after creating the pipe with {@code mkfifo /tmp/epd-control}.
+ *
+ * @author John Neffenger
+ */
+class ControlChannel implements Runnable {
+
+    private static final String THREAD_NAME = "EPD Control Channel";
+
+    private final Path path;
+    private final Consumer<String> handler;
+
+    /**
+     * Creates a new control channel.
+     *
+     * @param path the path of the named pipe
+     * @param handler the handler of each command
+     * @throws IllegalArgumentException if the named pipe does not exist or is
+     * a regular file, whose commands would be read again each time it is
+     * reopened
+     */
+    ControlChannel(Path path, Consumer<String> handler) {
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException(String.format(
+                    "Control channel not found: %s", path));
+        }
+        if (Files.isRegularFile(path)) {
+            throw new IllegalArgumentException(String.format(
+                    "Control channel is not a named pipe: %s", path));
+        }
+        this.path = path;
+        this.handler = handler;
+    }
+
+    /**
+     * Starts reading commands on a daemon thread.
+     */
+    void start() {
+        Thread thread = new Thread(this, THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        boolean open = true;
+        while (open) {
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                String line = reader.readLine();
+                while (line != null) {
+                    final String command = line.trim();
+                    if (!command.isEmpty()) {
+                        Platform.runLater(() -> handler.accept(command));
+                    }
+                    line = reader.readLine();
+                }
+            } catch (IOException e) {
+                System.err.println(e);
+                open = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rectangular region of a frame modified by an update. The union of two
+ * regions keeps the regions it contains, so that a toolkit adapter can write
+ * only the pixels that changed while the observers of the frame see a single
+ * bounding rectangle.
+ *
+ * @author John Neffenger
+ */
+final class DirtyRegion {
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final List<DirtyRegion> parts;
+
+    /**
+     * Creates a new dirty region.
+     *
+     * @param x the x-coordinate of the upper-left corner of the region
+     * @param y the y-coordinate of the upper-left corner of the region
+     * @param width the width of the region
+     * @param height the height of the region
+     */
+    DirtyRegion(int x, int y, int width, int height) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        parts = List.of(this);
+    }
+
+    /**
+     * Creates a new dirty region bounding the given parts.
+     *
+     * @param x the x-coordinate of the upper-left corner of the region
+     * @param y the y-coordinate of the upper-left corner of the region
+     * @param width the width of the region
+     * @param height the height of the region
+     * @param parts the regions contained in this region
+     */
+    private DirtyRegion(int x, int y, int width, int height, List<DirtyRegion> parts) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.parts = parts;
+    }
+
+    /**
+     * Gets the x-coordinate of the upper-left corner of this region.
+     *
+     * @return the x-coordinate in pixels
+     */
+    int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the y-coordinate of the upper-left corner of this region.
+     *
+     * @return the y-coordinate in pixels
+     */
+    int getY() {
+        return y;
+    }
+
+    /**
+     * Gets the width of this region.
+     *
+     * @return the width in pixels
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of this region.
+     *
+     * @return the height in pixels
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the area of this region.
+     *
+     * @return the number of pixels in the region
+     */
+    int getArea() {
+        return width * height;
+    }
+
+    /**
+     * Gets the index of the first pixel of this region in a raster.
+     *
+     * @param scanline the distance between rows in the raster
+     * @return the index of the upper-left pixel of the region
+     */
+    int getOffset(int scanline) {
+        return y * scanline + x;
+    }
+
+    /**
+     * Gets the rectangles that make up this region. A region created by its
+     * public constructor has only itself as a part.
+     *
+     * @return the list of rectangles in this region
+     */
+    List<DirtyRegion> getParts() {
+        return parts;
+    }
+
+    /**
+     * Gets the smallest region containing both this region and the other,
+     * keeping the parts of both regions.
+     *
+     * @param other the other region
+     * @return the union of the two regions
+     */
+    DirtyRegion union(DirtyRegion other) {
+        int minX = Math.min(x, other.x);
+        int minY = Math.min(y, other.y);
+        int maxX = Math.max(x + width, other.x + other.width);
+        int maxY = Math.max(y + height, other.y + other.height);
+        List<DirtyRegion> list = new ArrayList<>(parts);
+        list.addAll(other.parts);
+        return new DirtyRegion(minX, minY, maxX - minX, maxY - minY, list);
+    }
+
+    /**
+     * Gets a region centered in this region with the given percentage of its
+     * area, keeping its aspect ratio.
+     *
+     * @param percent the percentage of the area, from 1 to 100
+     * @return the centered region, or this region if the percentage is 100
+     */
+    DirtyRegion scale(int percent) {
+        DirtyRegion region = this;
+        if (percent < 100) {
+            double factor = Math.sqrt(percent / 100.0);
+            int w = Math.max((int) Math.round(width * factor), 1);
+            int h = Math.max((int) Math.round(height * factor), 1);
+            region = new DirtyRegion(x + (width - w) / 2, y + (height - h) / 2, w, h);
+        }
+        return region;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d+%d+%d", width, height, x, y);
+    }
+}
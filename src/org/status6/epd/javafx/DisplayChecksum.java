@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.nio.IntBuffer;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * A checksum of the frames as displayed by a JavaFX node, rather than as
+ * rendered by the frame generator. After each frame is written to the node, a
+ * snapshot of the node is taken and added in its entirety to a
+ * {@link FrameChecksum}. The checksum therefore covers the adapter that writes
+ * the frames to the node and the JavaFX pipeline that renders them, so an
+ * error in either one changes its value, including stale pixels left outside
+ * the region modified by the frame.
+ *
+ * @implNote Taking a snapshot renders the node a second time in each frame, so
+ * the frame rate is much lower while the checksum is being computed. The
+ * snapshots stop once the checksum includes the specified number of frames.
+ *
+ * @author John Neffenger
+ */
+class DisplayChecksum implements FrameObserver {
+
+    private final Node node;
+    private final FrameChecksum checksum;
+    private final SnapshotParameters parameters;
+    private final WritablePixelFormat<IntBuffer> format;
+
+    private WritableImage image;
+    private int[] pixels;
+
+    /**
+     * Creates a new display checksum.
+     *
+     * @param node the node displaying the frames
+     * @param width the width of the frames in pixels
+     * @param frames the number of frames to include in the checksum, or zero
+     * to include all frames
+     */
+    DisplayChecksum(Node node, int width, int frames) {
+        this.node = node;
+        checksum = new FrameChecksum(width, frames);
+        parameters = new SnapshotParameters();
+        format = PixelFormat.getIntArgbInstance();
+        pixels = new int[0];
+    }
+
+    @Override
+    public void update(long now, int[] raster, int scanline, DirtyRegion region) {
+        if (!checksum.isComplete()) {
+            if (region == null) {
+                checksum.update(pixels, 0, 0, null);
+            } else {
+                image = node.snapshot(parameters, image);
+                int width = (int) image.getWidth();
+                int height = (int) image.getHeight();
+                if (pixels.length != width * height) {
+                    pixels = new int[width * height];
+                }
+                image.getPixelReader().getPixels(0, 0, width, height, format, pixels, 0, width);
+                checksum.update(pixels, 0, width, new DirtyRegion(0, 0, width, height));
+            }
+        }
+    }
+
+    /**
+     * Prints the value of the checksum and the number of frames it includes.
+     */
+    void report() {
+        checksum.report();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A simulated e-paper display that models the latency of each update, for
+ * evaluating the animations without the actual hardware. The simulator reads
+ * the same waveform mode and wait settings as the Monocle EPD platform. In the
+ * automatic waveform mode it selects the fast DU waveform when every new pixel
+ * in the update is black or white, and the slow GC16 waveform otherwise, using
+ * the same model as the {@link FrameAnalyzer}. The panel processes one update
+ * at a time.
+ * Unless the {@code monocle.epd.noWait} property is {@code true}, the
+ * simulator blocks the JavaFX Application Thread until the update completes,
+ * as the EPD platform blocks while waiting for each update. The simulator
+ * keeps only running totals for its summary, and records each update only
+ * when a timeline is requested, so it can run indefinitely.
+ *
+ * @implNote The latency of each waveform is a rough approximation of the
+ * frame rates measured on a Kobo Touch N905C, with an added cost for the
+ * pixels in the update region. The DU and GC16 latencies are a least-squares
+ * fit to the rates of the sweep pattern in the automatic waveform mode, which
+ * the simulator reproduces within about 25 percent. The long GC16 latency
+ * reflects that the device was slower with gray levels than this model of the
+ * waveform selection can explain.
+ *
+ * @author John Neffenger
+ */
+class EpdSimulator implements FrameObserver {
+
+    private static final String WAVEFORM_KEY = "monocle.epd.waveformMode";
+    private static final String NO_WAIT_KEY = "monocle.epd.noWait";
+
+    private static final int WAVEFORM_MODE_DU = 1;
+    private static final int WAVEFORM_MODE_GC16 = 2;
+    private static final int WAVEFORM_MODE_GC4 = 3;
+    private static final int WAVEFORM_MODE_A2 = 4;
+    private static final int WAVEFORM_MODE_AUTO = 257;
+    private static final String[] WAVEFORM_NAMES = {"INIT", "DU", "GC16", "GC4", "A2"};
+
+    private static final long NANOS_PER_MILLIS = 1_000_000;
+    private static final long[] LATENCY_MS = {0, 220, 990, 300, 120};
+    private static final long NANOS_PER_PIXEL = 100;
+
+    /**
+     * A simulated update of the display.
+     */
+    private static final class Update {
+
+        private final int frame;
+        private final long submit;
+        private final long start;
+        private final long end;
+        private final int waveform;
+        private final int levels;
+        private final int area;
+
+        private Update(int frame, long submit, long start, long end, int waveform, int levels, int area) {
+            this.frame = frame;
+            this.submit = submit;
+            this.start = start;
+            this.end = end;
+            this.waveform = waveform;
+            this.levels = levels;
+            this.area = area;
+        }
+    }
+
+    private final int mode;
+    private final boolean noWait;
+    private final Path timeline;
+    private final List<Update> updates;
+    private final int[] counts;
+
+    private int frame;
+    private int number;
+    private long busy;
+    private long queued;
+    private long origin;
+    private long panelFree;
+
+    /**
+     * Selects the waveform mode for the update in the automatic mode.
+     *
+     * @param mask the bit mask of the gray levels of the new pixels in the
+     * update
+     * @return the waveform mode
+     */
+    private static int select(int mask) {
+        return FrameAnalyzer.isBilevel(mask) ? WAVEFORM_MODE_DU : WAVEFORM_MODE_GC16;
+    }
+
+    /**
+     * Creates a new simulated display.
+     *
+     * @param timeline the file for the timeline of updates, or {@code null}
+     * to print only the summary
+     * @throws IllegalArgumentException if the waveform mode is not supported
+     */
+    EpdSimulator(Path timeline) {
+        mode = Integer.getInteger(WAVEFORM_KEY, WAVEFORM_MODE_AUTO);
+        if (mode != WAVEFORM_MODE_AUTO && (mode < WAVEFORM_MODE_DU || mode > WAVEFORM_MODE_A2)) {
+            throw new IllegalArgumentException(String.format(
+                    "Unsupported waveform mode: %d", mode));
+        }
+        noWait = Boolean.getBoolean(NO_WAIT_KEY);
+        this.timeline = timeline;
+        updates = new ArrayList<>();
+        counts = new int[WAVEFORM_NAMES.length];
+        origin = System.nanoTime();
+    }
+
+    /**
+     * Waits for the panel to complete the update.
+     *
+     * @param end the time when the update completes in nanoseconds
+     */
+    private void waitFor(long end) {
+        long remaining = end - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                Thread.sleep(remaining / NANOS_PER_MILLIS, (int) (remaining % NANOS_PER_MILLIS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void update(long now, int[] raster, int scanline, DirtyRegion region) {
+        if (region != null) {
+            long submit = System.nanoTime();
+            int mask = FrameAnalyzer.levels(raster, region.getOffset(scanline),
+                    region.getWidth(), region.getHeight(), scanline);
+            int waveform = mode == WAVEFORM_MODE_AUTO ? select(mask) : mode;
+            long latency = LATENCY_MS[waveform] * NANOS_PER_MILLIS + region.getArea() * NANOS_PER_PIXEL;
+            long start = Math.max(submit, panelFree);
+            long end = start + latency;
+            panelFree = end;
+            counts[waveform]++;
+            number++;
+            busy += end - start;
+            queued += start - submit;
+            if (timeline != null) {
+                updates.add(new Update(frame, submit - origin, start - origin, end - origin,
+                        waveform, Integer.bitCount(mask), region.getArea()));
+            }
+            if (!noWait) {
+                waitFor(end);
+            }
+        }
+        frame++;
+    }
+
+    /**
+     * Writes the timeline of updates as comma-separated values, with times in
+     * milliseconds since the simulator was created.
+     *
+     * @throws IOException if an error occurs writing the file
+     */
+    private void write() throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(timeline))) {
+            writer.println("frame,submit,start,end,latency,waveform,levels,area");
+            for (Update u : updates) {
+                writer.println(String.format("%d,%.1f,%.1f,%.1f,%.1f,%s,%d,%d", u.frame,
+                        (double) u.submit / NANOS_PER_MILLIS, (double) u.start / NANOS_PER_MILLIS,
+                        (double) u.end / NANOS_PER_MILLIS, (double) (u.end - u.start) / NANOS_PER_MILLIS,
+                        WAVEFORM_NAMES[u.waveform], u.levels, u.area));
+            }
+        }
+    }
+
+    /**
+     * Prints a summary of the simulated updates and writes the timeline, if
+     * requested.
+     */
+    void report() {
+        int divisor = Math.max(number, 1);
+        System.out.println(String.format(
+                "Simulated display: %d updates (A2 %d, DU %d, GC4 %d, GC16 %d), "
+                + "%.0f ms/update, %.0f ms queued/update, %d frames skipped",
+                number, counts[WAVEFORM_MODE_A2], counts[WAVEFORM_MODE_DU],
+                counts[WAVEFORM_MODE_GC4], counts[WAVEFORM_MODE_GC16],
+                (double) busy / NANOS_PER_MILLIS / divisor, (double) queued / NANOS_PER_MILLIS / divisor,
+                frame - number));
+        if (timeline != null) {
+            try {
+                write();
+            } catch (IOException e) {
+                System.err.println(e);
+            }
+        }
+    }
+}
@@ -16,16 +16,17 @@
  */
 package org.status6.epd.javafx;
 
-import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 
 /**
- * An animation timer that terminates the application after the specified number
- * of frames.
+ * A frame observer that terminates the application after the specified number
+ * of frames. The observer counts the frames the animation renders rather than
+ * the pulses, so the application still displays every frame of its loops when
+ * the animation renders on only a fraction of the pulses.
  *
  * @author John Neffenger
  */
-public class ExitTimer extends AnimationTimer {
+public class ExitTimer implements FrameObserver {
 
     private final int frames;
 
@@ -42,7 +43,7 @@ public class ExitTimer extends AnimationTimer {
     }
 
     @Override
-    public void handle(long now) {
+    public void update(long now, int[] raster, int scanline, DirtyRegion region) {
         if (frames != 0 && count == frames) {
             Platform.exit();
         }
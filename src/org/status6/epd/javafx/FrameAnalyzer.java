@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+/**
+ * A frame analyzer that counts the gray levels touched by each update of the
+ * display. The automatic waveform mode of the EPD driver selects the fast
+ * bilevel waveform only when all pixels of an update are black or white, so
+ * any gray pixel in the update region falls back to a slow grayscale waveform.
+ * The analyzer can also snap gray pixels to pure black or white, letting more
+ * updates qualify for the fast waveform.
+ *
+ * @author John Neffenger
+ */
+class FrameAnalyzer {
+
+    private static final int GRAY_THRESHOLD = 0x80;
+
+    /**
+     * The number of gray levels on the panel.
+     */
+    static final int PANEL_LEVELS = 16;
+
+    /**
+     * The shift from 8-bit gray values to the 16 gray levels of the panel.
+     */
+    private static final int LEVEL_SHIFT = 4;
+
+    /**
+     * The gray levels of an update with only black and white pixels.
+     */
+    private static final int BILEVEL_MASK = 1 | 1 << 15;
+
+    private final boolean enabled;
+    private final boolean snap;
+
+    private long bilevel;
+    private long gray;
+    private int maximum;
+
+    /**
+     * Gets the gray value of the pixel, treating a transparent pixel as the
+     * white background behind it.
+     *
+     * @param argb the pixel in the INT_ARGB format
+     * @return the gray value from 0 (black) to 255 (white)
+     */
+    static int gray(int argb) {
+        if (argb >>> 24 == 0) {
+            return 0xFF;
+        }
+        int r = argb >> 16 & 0xFF;
+        int g = argb >> 8 & 0xFF;
+        int b = argb & 0xFF;
+        return (r + g + b) / 3;
+    }
+
+    /**
+     * Gets the gray levels touched by an update filled with a single color.
+     *
+     * @param argb the color in the INT_ARGB format
+     * @return a bit mask of the 16 panel gray levels, where bit 0 is black
+     * and bit 15 is white
+     */
+    static int levels(int argb) {
+        return 1 << (gray(argb) >> LEVEL_SHIFT);
+    }
+
+    /**
+     * Gets the gray levels touched by an update of the rectangular region.
+     *
+     * @param pixels the pixels in the INT_ARGB format
+     * @param offset the index of the first pixel of the region
+     * @param width the width of the region
+     * @param height the height of the region
+     * @param scanline the distance between rows in the array of pixels
+     * @return a bit mask of the 16 panel gray levels, where bit 0 is black
+     * and bit 15 is white
+     */
+    static int levels(int[] pixels, int offset, int width, int height, int scanline) {
+        int mask = 0;
+        for (int y = 0; y < height; y++) {
+            int start = offset + y * scanline;
+            for (int i = start; i < start + width; i++) {
+                mask |= levels(pixels[i]);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Checks whether an update qualifies for the fast bilevel waveform in the
+     * automatic waveform mode, which requires the new value of every pixel in
+     * the update to be black or white.
+     *
+     * @param mask the bit mask of the gray levels of the new pixels in the
+     * update
+     * @return {@code true} if the update has only black and white pixels;
+     * otherwise {@code false}
+     */
+    static boolean isBilevel(int mask) {
+        return (mask & ~BILEVEL_MASK) == 0;
+    }
+
+    /**
+     * Quantizes the pixel to the nearest of the given number of gray levels,
+     * evenly spaced from black to white. Transparent pixels are left
+     * unchanged.
+     *
+     * @param argb the pixel in the INT_ARGB format
+     * @param levels the number of gray levels, at least 2
+     * @return the quantized pixel
+     */
+    static int quantize(int argb, int levels) {
+        int pixel = argb;
+        if (argb >>> 24 != 0) {
+            int step = 0xFF / (levels - 1);
+            int gray = Math.min((gray(argb) + step / 2) / step * step, 0xFF);
+            pixel = argb & 0xFF000000 | gray << 16 | gray << 8 | gray;
+        }
+        return pixel;
+    }
+
+    /**
+     * Creates a new frame analyzer.
+     *
+     * @param enabled {@code true} to count the gray levels of each update;
+     * otherwise {@code false}
+     * @param snap {@code true} to snap gray pixels to black or white;
+     * otherwise {@code false}
+     */
+    FrameAnalyzer(boolean enabled, boolean snap) {
+        this.enabled = enabled;
+        this.snap = snap;
+    }
+
+    /**
+     * Checks whether this analyzer counts the gray levels of each update.
+     *
+     * @return {@code true} if the analyzer is enabled; otherwise {@code false}
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Snaps the pixel to black or white, when enabled. Transparent pixels are
+     * left unchanged.
+     *
+     * @param argb the pixel in the INT_ARGB format
+     * @return the snapped pixel, or the original pixel if snapping is disabled
+     */
+    int snap(int argb) {
+        if (!snap || argb >>> 24 == 0) {
+            return argb;
+        }
+        return gray(argb) < GRAY_THRESHOLD ? FrameGenerator.BLACK : FrameGenerator.WHITE;
+    }
+
+    /**
+     * Snaps the pixels to black or white in place, when enabled.
+     *
+     * @param pixels the pixels in the INT_ARGB format
+     */
+    void snap(int[] pixels) {
+        if (snap) {
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = snap(pixels[i]);
+            }
+        }
+    }
+
+    /**
+     * Records an update of the display, when enabled.
+     *
+     * @param mask the bit mask of the gray levels touched by the update
+     */
+    void record(int mask) {
+        if (enabled) {
+            if (isBilevel(mask)) {
+                bilevel++;
+            } else {
+                gray++;
+            }
+            maximum = Math.max(maximum, Integer.bitCount(mask));
+        }
+    }
+
+    /**
+     * Prints the number of bilevel and gray updates recorded.
+     */
+    void report() {
+        long total = bilevel + gray;
+        System.out.println(String.format(
+                "Gray levels: %d bilevel and %d gray updates (%.0f%% bilevel), %d levels per update maximum",
+                bilevel, gray, total == 0 ? 0.0 : 100.0 * bilevel / total, maximum));
+    }
+}
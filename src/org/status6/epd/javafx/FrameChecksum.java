@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * A checksum of a sequence of frames, computed from the region and pixels of
+ * each update so that any change in the output of a frame generator can be
+ * detected. The checksum includes only the specified number of frames, so its
+ * value does not depend on how many more frames are displayed before the
+ * application terminates.
+ *
+ * @author John Neffenger
+ */
+class FrameChecksum implements FrameObserver {
+
+    private static final int SKIPPED = -1;
+    private static final int REGION_INTS = 4;
+
+    private final int frames;
+    private final CRC32 crc;
+    private final ByteBuffer bytes;
+    private final IntBuffer ints;
+
+    private int count;
+
+    /**
+     * Creates a new frame checksum.
+     *
+     * @param width the width of the raster in pixels
+     * @param frames the number of frames to include in the checksum, or zero
+     * to include all frames
+     */
+    FrameChecksum(int width, int frames) {
+        this.frames = frames;
+        crc = new CRC32();
+        bytes = ByteBuffer.allocate(Math.max(width, REGION_INTS) * Integer.BYTES);
+        ints = bytes.asIntBuffer();
+    }
+
+    /**
+     * Adds the integers in the buffer to the checksum.
+     */
+    private void flush() {
+        bytes.position(0).limit(ints.position() * Integer.BYTES);
+        crc.update(bytes);
+        bytes.clear();
+        ints.clear();
+    }
+
+    /**
+     * Adds an update to the checksum, with the pixels of the region at the
+     * given offset in the array.
+     *
+     * @param pixels the pixels in the INT_ARGB format
+     * @param offset the index of the upper-left pixel of the region
+     * @param scanline the distance between rows in the array of pixels
+     * @param region the region modified by the update, or {@code null} if the
+     * frame was skipped
+     */
+    void update(int[] pixels, int offset, int scanline, DirtyRegion region) {
+        if (!isComplete()) {
+            if (region == null) {
+                ints.put(SKIPPED);
+                flush();
+            } else {
+                ints.put(region.getX()).put(region.getY());
+                ints.put(region.getWidth()).put(region.getHeight());
+                flush();
+                for (int y = 0; y < region.getHeight(); y++) {
+                    ints.put(pixels, offset + y * scanline, region.getWidth());
+                    flush();
+                }
+            }
+            count++;
+        }
+    }
+
+    /**
+     * Adds an update to the checksum.
+     *
+     * @param raster the pixels in the INT_ARGB format
+     * @param scanline the distance between rows in the raster
+     * @param region the region modified by the update, or {@code null} if the
+     * frame was skipped
+     */
+    void update(int[] raster, int scanline, DirtyRegion region) {
+        update(raster, region == null ? 0 : region.getOffset(scanline), scanline, region);
+    }
+
+    @Override
+    public void update(long now, int[] raster, int scanline, DirtyRegion region) {
+        update(raster, scanline, region);
+    }
+
+    /**
+     * Checks whether the checksum includes all of the specified number of
+     * frames.
+     *
+     * @return {@code true} if no more frames are added; otherwise
+     * {@code false}
+     */
+    boolean isComplete() {
+        return frames != 0 && count >= frames;
+    }
+
+    /**
+     * Gets the number of frames included in the checksum.
+     *
+     * @return the number of frames
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Prints the value of the checksum and the number of frames it includes.
+     */
+    void report() {
+        System.out.println(String.format(
+                "Frame checksum: %08x (%d frames)", getValue(), count));
+    }
+
+    /**
+     * Gets the value of the checksum.
+     *
+     * @return the CRC-32 value of all updates
+     */
+    long getValue() {
+        return crc.getValue();
+    }
+}
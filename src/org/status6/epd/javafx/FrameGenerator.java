@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.util.Arrays;
+
+/**
+ * An abstract class for generating a finite sequence of frames into a plain
+ * raster of pixels, independent of the JavaFX toolkit. Each frame is rendered
+ * into the same raster, modifying only the region returned for the frame, so
+ * the frames can be displayed by a JavaFX node or rendered offline for testing
+ * and benchmarking.
+ *
+ * @author John Neffenger
+ */
+abstract class FrameGenerator {
+
+    static final int BLACK = 0xFF000000;
+    static final int WHITE = 0xFFFFFFFF;
+
+    private final int width;
+    private final int height;
+
+    /**
+     * Fills the region of the raster with a single color.
+     *
+     * @param raster the pixels in the INT_ARGB format
+     * @param scanline the distance between rows in the raster
+     * @param region the region to fill
+     * @param argb the color in the INT_ARGB format
+     */
+    static void fill(int[] raster, int scanline, DirtyRegion region, int argb) {
+        int start = region.getOffset(scanline);
+        for (int y = 0; y < region.getHeight(); y++) {
+            int from = start + y * scanline;
+            Arrays.fill(raster, from, from + region.getWidth(), argb);
+        }
+    }
+
+    /**
+     * Copies the region from one raster to another.
+     *
+     * @param source the source pixels
+     * @param target the target pixels
+     * @param scanline the distance between rows in both rasters
+     * @param region the region to copy
+     */
+    static void copy(int[] source, int[] target, int scanline, DirtyRegion region) {
+        int start = region.getOffset(scanline);
+        for (int y = 0; y < region.getHeight(); y++) {
+            int from = start + y * scanline;
+            System.arraycopy(source, from, target, from, region.getWidth());
+        }
+    }
+
+    /**
+     * Creates a new frame generator.
+     *
+     * @param width the width of each frame in pixels
+     * @param height the height of each frame in pixels
+     */
+    FrameGenerator(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Gets the width of each frame.
+     *
+     * @return the width in pixels
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of each frame.
+     *
+     * @return the height in pixels
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Creates a raster for the frames of this generator, filled with white.
+     *
+     * @return a new raster of pixels in the INT_ARGB format
+     */
+    int[] createRaster() {
+        int[] raster = new int[width * height];
+        Arrays.fill(raster, WHITE);
+        return raster;
+    }
+
+    /**
+     * Gets the number of frames in this sequence.
+     *
+     * @return the number of frames
+     */
+    abstract int getNumFrames();
+
+    /**
+     * Reduces the number of gray levels in the frames that follow, for
+     * generators that support it. The default implementation does nothing.
+     *
+     * @param levels the maximum number of gray levels: 2, 4, or 16
+     */
+    void setGrayLevels(int levels) {
+    }
+
+    /**
+     * Reduces the area updated by the frames that follow, for generators
+     * that support it. The default implementation does nothing.
+     *
+     * @param percent the percentage of the full area, from 1 to 100
+     */
+    void setAreaPercent(int percent) {
+    }
+
+    /**
+     * Renders the next frame of the sequence into the raster.
+     *
+     * @param raster the pixels in the INT_ARGB format, with rows the width of
+     * a frame
+     * @return the region of the raster modified by the frame, or {@code null}
+     * if the frame is identical to the previous one
+     */
+    abstract DirtyRegion render(int[] raster);
+}
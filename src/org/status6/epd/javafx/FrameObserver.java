@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+/**
+ * An observer of the frames displayed by a {@link RasterAnimation}.
+ *
+ * @author John Neffenger
+ */
+interface FrameObserver {
+
+    /**
+     * Receives a frame rendered into the raster of the animation, after the
+     * modified region is written to the JavaFX node.
+     *
+     * @param now the timestamp of the current frame in nanoseconds
+     * @param raster the pixels in the INT_ARGB format
+     * @param scanline the distance between rows in the raster
+     * @param region the region modified by the frame, or {@code null} if the
+     * frame was skipped
+     */
+    void update(long now, int[] raster, int scanline, DirtyRegion region);
+}
@@ -16,117 +16,50 @@
  */
 package org.status6.epd.javafx;
 
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferInt;
-import java.io.IOException;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
-import javax.imageio.ImageIO;
-import javax.imageio.ImageReader;
 
 /**
- * An animation timer that cycles through the sequence of frames in an animated
- * GIF image file.
+ * An animation timer that displays the frames of a generator in an image view,
+ * writing only the region modified by each frame.
  *
  * @author John Neffenger
  */
-class ImageAnimation extends FiniteAnimation {
+class ImageAnimation extends RasterAnimation {
 
-    private static final String FORMAT_NAME = "gif";
-
-    private final ArrayList<BufferedImage> frames;
     private final ImageView view;
-    private final boolean patrol;
-    private final int count;
     private final int width;
     private final int height;
-    private final BufferedImage awtImage;
-    private final Graphics2D graphics;
     private final PixelFormat<IntBuffer> format;
     private final WritableImage jfxImage1;
     private final WritableImage jfxImage2;
 
     private WritableImage jfxImage;
-    private boolean reverse;
-    private int index;
-
-    /**
-     * Gets a list of all animation frames in the GIF image.
-     *
-     * @param filename the name of the image file
-     * @return the list of animation frames in the image
-     * @throws IOException if an error occurs reading the image file
-     * @throws IllegalArgumentException if the image format is not GIF
-     */
-    private static ArrayList<BufferedImage> getFrames(String filename) throws IOException {
-        ArrayList<BufferedImage> list = new ArrayList<>();
-        try (var input = ImageAnimation.class.getResourceAsStream("/" + filename)) {
-            if (input == null) {
-                throw new IOException(String.format(
-                        "Failed loading image file: %s", filename));
-            }
-            try (var stream = ImageIO.createImageInputStream(input)) {
-                ImageReader reader = ImageIO.getImageReadersByFormatName(FORMAT_NAME).next();
-                reader.setInput(stream);
-                int count = reader.getNumImages(true);
-                if (count == 0) {
-                    throw new IllegalArgumentException(String.format(
-                            "Failed reading GIF image: %s", filename));
-                }
-                for (int i = 0; i < count; i++) {
-                    list.add(reader.read(i));
-                }
-            }
-        }
-        return list;
-    }
+    private DirtyRegion previous;
 
     /**
      * Creates a new image animation.
      *
      * @param view the node for painting each animation frame
-     * @param filename the name of the image file
-     * @param patrol {@code true} to cycle back and forth between the first and
-     * last frames of the animation, called a <i>patrol cycle</i>; otherwise
-     * {@code false} to loop back to the first frame after the last
-     * @throws IOException if an error occurs reading the image file
+     * @param generator the generator of the animation frames
      */
-    ImageAnimation(ImageView view, String filename, boolean patrol) throws IOException {
-        frames = getFrames(filename);
+    ImageAnimation(ImageView view, FrameGenerator generator) {
+        super(view, generator);
         this.view = view;
-        this.patrol = patrol;
-        count = frames.size();
-        BufferedImage first = frames.get(0);
-        width = first.getWidth();
-        height = first.getHeight();
-        for (BufferedImage image : frames) {
-            if (image.getWidth() != width || image.getHeight() != height) {
-                throw new IllegalArgumentException("GIF image must be a coalesced animation");
-            }
-        }
-
-        /*
-         * The fastest image conversion draws the source AWT image into an
-         * intermediate AWT image of type INT_ARGB; then gets the intermediate
-         * raster data and writes it to the target JavaFX image as pixels in the
-         * INT_ARGB_PRE format (see https://github.com/jgneff/tofximage).
-         * Because pixels in GIF images are either fully opaque or fully
-         * transparent, their colors are the same whether or not premultiplied
-         * with alpha.
-         */
-        awtImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        graphics = awtImage.createGraphics();
+        width = generator.getWidth();
+        height = generator.getHeight();
         format = PixelFormat.getIntArgbPreInstance();
 
         /*
          * Use double buffering on the JavaFX Application Thread to avoid
          * modifying an image in use by the QuantumRenderer thread; otherwise,
          * screen tearing is visible when there is enough competition with other
-         * threads in the Java virtual machine.
+         * threads in the Java virtual machine. Because the two images
+         * alternate, each one misses the region written to the other, so each
+         * update writes both the region modified by the current frame and the
+         * region modified by the previous frame.
          */
         jfxImage1 = new WritableImage(width, height);
         jfxImage2 = new WritableImage(width, height);
@@ -134,47 +67,40 @@ class ImageAnimation extends FiniteAnimation {
     }
 
     /**
-     * Gets the index for the next frame when in a patrol cycle.
+     * Checks whether the first region contains the second region.
      *
-     * @return the index for the next frame
+     * @param outer the first region
+     * @param inner the second region
+     * @return {@code true} if the first region contains the second;
+     * otherwise {@code false}
      */
-    private int nextPatrolCycle() {
-        int next = reverse ? index - 1 : index + 1;
-        if (next < 0) {
-            next = 1;
-            reverse = false;
-        } else if (next == count) {
-            next = count - 2;
-            reverse = true;
-        }
-        return next;
+    private static boolean contains(DirtyRegion outer, DirtyRegion inner) {
+        return inner.getX() >= outer.getX() && inner.getY() >= outer.getY()
+                && inner.getX() + inner.getWidth() <= outer.getX() + outer.getWidth()
+                && inner.getY() + inner.getHeight() <= outer.getY() + outer.getHeight();
     }
 
     /**
-     * Gets the index for the next frame when in a loop cycle.
+     * Writes the parts of the region from the raster to the current image.
      *
-     * @return the index for the next frame
+     * @param raster the pixels in the INT_ARGB format
+     * @param region the region to write
      */
-    private int nextLoopCycle() {
-        int next = index + 1;
-        if (next == count) {
-            next = 0;
+    private void write(int[] raster, DirtyRegion region) {
+        for (DirtyRegion part : region.getParts()) {
+            jfxImage.getPixelWriter().setPixels(part.getX(), part.getY(),
+                    part.getWidth(), part.getHeight(), format, raster, part.getOffset(width), width);
         }
-        return next;
     }
 
     @Override
-    int getNumFrames() {
-        return frames.size();
-    }
-
-    @Override
-    public void handle(long now) {
-        graphics.drawImage(frames.get(index), 0, 0, null);  // Draws into awtImage
-        int[] data = ((DataBufferInt) awtImage.getRaster().getDataBuffer()).getData();
-        jfxImage.getPixelWriter().setPixels(0, 0, width, height, format, data, 0, width);
+    void show(int[] raster, DirtyRegion region) {
+        write(raster, region);
+        if (previous != null && !contains(region, previous)) {
+            write(raster, previous);
+        }
+        previous = region;
         view.setImage(jfxImage);
         jfxImage = jfxImage == jfxImage2 ? jfxImage1 : jfxImage2;
-        index = patrol ? nextPatrolCycle() : nextLoopCycle();
     }
 }
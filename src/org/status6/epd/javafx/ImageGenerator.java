@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+
+/**
+ * A frame generator that cycles through the sequence of frames in an animated
+ * GIF image file, or in a directory or ZIP archive of numbered PNG or PGM
+ * frames. Identical frames are stored only once, and a frame identical
+ * to the previous one is skipped without modifying the raster.
+ *
+ * @author John Neffenger
+ */
+class ImageGenerator extends FrameGenerator {
+
+    private static final String FORMAT_NAME = "gif";
+
+    private final ArrayList<int[]> pixels;
+    private final int[] sequence;
+    private final FrameAnalyzer analyzer;
+    private final boolean patrol;
+    private final int count;
+    private final DirtyRegion full;
+
+    private final int[][] masks;
+
+    private int levels;
+    private DirtyRegion bounds;
+
+    private boolean reverse;
+    private int index;
+    private int shown;
+
+    /**
+     * Gets a list of all animation frames in the GIF image.
+     *
+     * @param filename the name of the image file
+     * @param input the input stream of the image file
+     * @return the list of animation frames in the image
+     * @throws IOException if an error occurs reading the image file
+     * @throws IllegalArgumentException if the image format is not GIF
+     */
+    private static List<BufferedImage> getFrames(String filename, InputStream input) throws IOException {
+        ArrayList<BufferedImage> list = new ArrayList<>();
+        try (var stream = ImageIO.createImageInputStream(input)) {
+            ImageReader reader = ImageIO.getImageReadersByFormatName(FORMAT_NAME).next();
+            reader.setInput(stream);
+            int count = reader.getNumImages(true);
+            if (count == 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Failed reading GIF image: %s", filename));
+            }
+            for (int i = 0; i < count; i++) {
+                list.add(reader.read(i));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Gets a list of all animation frames in the image file or sequence. The
+     * name is first tried as a path in the file system, where it can be a GIF
+     * image file or a directory or ZIP archive of numbered frames, and then as
+     * the name of a GIF image file on the class path.
+     *
+     * @param filename the name of the image file, directory, or archive
+     * @return the list of animation frames
+     * @throws IOException if an error occurs reading the image file
+     * @throws IllegalArgumentException if the image format is not supported
+     */
+    private static List<BufferedImage> getFrames(String filename) throws IOException {
+        Path path = Path.of(filename);
+        if (Files.exists(path)) {
+            if (ImageSequence.isSequence(path)) {
+                return ImageSequence.read(path);
+            }
+            try (var input = Files.newInputStream(path)) {
+                return getFrames(filename, input);
+            }
+        }
+        try (var input = ImageGenerator.class.getResourceAsStream("/" + filename)) {
+            if (input == null) {
+                throw new IOException(String.format(
+                        "Failed loading image file: %s", filename));
+            }
+            return getFrames(filename, input);
+        }
+    }
+
+    /**
+     * Converts the AWT image to an array of pixels in the INT_ARGB format.
+     * An image already in that format, such as a frame of an image sequence,
+     * is used without copying.
+     *
+     * @param image the source AWT image
+     * @return the pixels of the image
+     */
+    private static int[] toPixels(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        BufferedImage argb = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = argb.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return ((DataBufferInt) argb.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Creates a new image generator.
+     *
+     * @param filename the name of the image file, directory, or archive
+     * @param patrol {@code true} to cycle back and forth between the first and
+     * last frames of the animation, called a <i>patrol cycle</i>; otherwise
+     * {@code false} to loop back to the first frame after the last. An
+     * animation of a single frame always loops.
+     * @param analyzer the analyzer of the gray levels in each update
+     * @throws IOException if an error occurs reading the image file
+     */
+    ImageGenerator(String filename, boolean patrol, FrameAnalyzer analyzer) throws IOException {
+        this(getFrames(filename), patrol, analyzer);
+    }
+
+    /**
+     * Creates a new image generator from the list of animation frames.
+     *
+     * @param frames the list of animation frames
+     * @param patrol {@code true} for a patrol cycle; otherwise {@code false}
+     * @param analyzer the analyzer of the gray levels in each update
+     */
+    private ImageGenerator(List<BufferedImage> frames, boolean patrol, FrameAnalyzer analyzer) {
+        super(frames.get(0).getWidth(), frames.get(0).getHeight());
+        this.analyzer = analyzer;
+        count = frames.size();
+        // A single frame has no other end to patrol back from
+        this.patrol = patrol && count > 1;
+        int width = getWidth();
+        int height = getHeight();
+        for (BufferedImage image : frames) {
+            if (image.getWidth() != width || image.getHeight() != height) {
+                throw new IllegalArgumentException("Frames must be the same size, as in a coalesced GIF animation");
+            }
+        }
+
+        /*
+         * The fastest image conversion draws the source AWT image into an
+         * intermediate AWT image of type INT_ARGB; then gets the intermediate
+         * raster data, which can be written to a JavaFX image as pixels in the
+         * INT_ARGB_PRE format (see https://github.com/jgneff/tofximage).
+         * Because pixels in GIF images are either fully opaque or fully
+         * transparent, their colors are the same whether or not premultiplied
+         * with alpha. The conversion is done once for each frame when loading
+         * the image, and frames with identical pixels are stored only once,
+         * found by their hash code and confirmed by comparing their contents.
+         * Any snapping to black and white is done before comparing, so frames
+         * that differ only in their gray pixels can become identical.
+         */
+        pixels = new ArrayList<>();
+        sequence = new int[count];
+        var hashes = new HashMap<Integer, List<Integer>>();
+        for (int i = 0; i < count; i++) {
+            int[] data = toPixels(frames.get(i));
+            analyzer.snap(data);
+            List<Integer> matches = hashes.computeIfAbsent(Arrays.hashCode(data), k -> new ArrayList<>());
+            int unique = -1;
+            for (int j = 0; j < matches.size() && unique == -1; j++) {
+                if (Arrays.equals(data, pixels.get(matches.get(j)))) {
+                    unique = matches.get(j);
+                }
+            }
+            if (unique == -1) {
+                unique = pixels.size();
+                pixels.add(data);
+                matches.add(unique);
+            }
+            sequence[i] = unique;
+        }
+        full = new DirtyRegion(0, 0, width, height);
+        bounds = full;
+        levels = FrameAnalyzer.PANEL_LEVELS;
+        masks = new int[FrameAnalyzer.PANEL_LEVELS + 1][];
+        shown = -1;
+    }
+
+    /**
+     * Copies the region of the source frame to the raster, quantizing its
+     * pixels when the gray levels are reduced.
+     *
+     * @param source the pixels of the source frame
+     * @param raster the pixels of the target raster
+     * @param scanline the distance between rows in both arrays
+     * @param region the region to copy
+     */
+    private void copyQuantized(int[] source, int[] raster, int scanline, DirtyRegion region) {
+        if (levels < FrameAnalyzer.PANEL_LEVELS) {
+            int start = region.getOffset(scanline);
+            for (int y = 0; y < region.getHeight(); y++) {
+                int from = start + y * scanline;
+                for (int i = from; i < from + region.getWidth(); i++) {
+                    raster[i] = FrameAnalyzer.quantize(source[i], levels);
+                }
+            }
+        } else {
+            copy(source, raster, scanline, region);
+        }
+    }
+
+    /**
+     * Gets the gray levels of the unique frame at the current number of gray
+     * levels when the analyzer is enabled. The levels of each frame are found
+     * when it is first rendered and cached for each number of gray levels, so
+     * a change in quality does not scan all of the frames at once.
+     *
+     * @param unique the index of the unique frame
+     * @return the bit mask of the gray levels, or zero if the analyzer is
+     * disabled
+     */
+    private int getMask(int unique) {
+        int mask = 0;
+        if (analyzer.isEnabled()) {
+            if (masks[levels] == null) {
+                masks[levels] = new int[pixels.size()];
+            }
+            mask = masks[levels][unique];
+            if (mask == 0) {
+                for (int argb : pixels.get(unique)) {
+                    mask |= FrameAnalyzer.levels(levels < FrameAnalyzer.PANEL_LEVELS
+                            ? FrameAnalyzer.quantize(argb, levels) : argb);
+                }
+                masks[levels][unique] = mask;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the index for the next frame when in a patrol cycle.
+     *
+     * @return the index for the next frame
+     */
+    private int nextPatrolCycle() {
+        int next = reverse ? index - 1 : index + 1;
+        if (next < 0) {
+            next = 1;
+            reverse = false;
+        } else if (next == count) {
+            next = count - 2;
+            reverse = true;
+        }
+        return next;
+    }
+
+    /**
+     * Gets the index for the next frame when in a loop cycle.
+     *
+     * @return the index for the next frame
+     */
+    private int nextLoopCycle() {
+        int next = index + 1;
+        if (next == count) {
+            next = 0;
+        }
+        return next;
+    }
+
+    /**
+     * {@inheritDoc} This generator quantizes the gray pixels of its frames to
+     * the nearest of the gray levels as it copies them to the raster.
+     */
+    @Override
+    void setGrayLevels(int levels) {
+        this.levels = Math.min(levels, FrameAnalyzer.PANEL_LEVELS);
+        shown = -1;
+    }
+
+    /**
+     * {@inheritDoc} This generator updates only the center of each frame.
+     */
+    @Override
+    void setAreaPercent(int percent) {
+        bounds = full.scale(percent);
+        shown = -1;
+    }
+
+    @Override
+    int getNumFrames() {
+        return count;
+    }
+
+    /**
+     * Renders the frame at the current index, unless it is identical to the
+     * frame already rendered. A skipped frame still takes its turn in the
+     * sequence, so the frame on the screen remains for the same duration that
+     * the identical frames would have been displayed.
+     *
+     * @param raster the pixels in the INT_ARGB format
+     * @return the full frame, or {@code null} if the frame is skipped
+     */
+    @Override
+    DirtyRegion render(int[] raster) {
+        DirtyRegion region = null;
+        int unique = sequence[index];
+        if (unique != shown) {
+            copyQuantized(pixels.get(unique), raster, getWidth(), bounds);
+            shown = unique;
+            analyzer.record(getMask(unique));
+            region = bounds;
+        }
+        index = patrol ? nextPatrolCycle() : nextLoopCycle();
+        return region;
+    }
+}
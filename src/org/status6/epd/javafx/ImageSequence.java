@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * Utility methods for reading a sequence of numbered PNG or PGM frames from a
+ * directory or ZIP archive. The frames are ordered by the last number in their
+ * file names, so <i>frame-2.png</i> comes before <i>frame-10.png</i>. Unlike
+ * the frames of a GIF image, which must be decoded one after another, the
+ * frames of a sequence are independent, so they are decoded in parallel on a
+ * thread pool with one thread for each available processor.
+ *
+ * @author John Neffenger
+ */
+final class ImageSequence {
+
+    private static final String ZIP_SUFFIX = ".zip";
+    private static final String PNG_SUFFIX = ".png";
+    private static final String PNG_FORMAT = "png";
+    private static final String PGM_SUFFIX = ".pgm";
+    private static final Pattern NUMBER = Pattern.compile("(\\d+)\\D*$");
+
+    private static final String PGM_BINARY = "P5";
+    private static final String PGM_ASCII = "P2";
+    private static final int PGM_MAXVAL_BYTE = 0xFF;
+    private static final int PGM_MAXVAL_SHORT = 0xFFFF;
+
+    /**
+     * A frame file in the sequence, with its name and a task that reads its
+     * contents.
+     */
+    private static class Entry {
+
+        private final String name;
+        private final Callable<byte[]> contents;
+
+        private Entry(String name, Callable<byte[]> contents) {
+            this.name = name;
+            this.contents = contents;
+        }
+    }
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ImageSequence() {
+    }
+
+    /**
+     * Checks whether the path is a directory or ZIP archive of frames.
+     *
+     * @param path the path of the file or directory
+     * @return {@code true} if the path is a directory or ZIP archive;
+     * otherwise {@code false}
+     */
+    static boolean isSequence(Path path) {
+        return Files.isDirectory(path)
+                || path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ZIP_SUFFIX);
+    }
+
+    /**
+     * Checks whether the file name is that of a PNG or PGM frame.
+     *
+     * @param name the file name
+     * @return {@code true} if the name has a PNG or PGM suffix; otherwise
+     * {@code false}
+     */
+    private static boolean isFrame(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(PNG_SUFFIX) || lower.endsWith(PGM_SUFFIX);
+    }
+
+    /**
+     * Gets the frame number from the file name.
+     *
+     * @param name the file name
+     * @return the last number in the name, or -1 if the name has no number
+     */
+    private static long getNumber(String name) {
+        Matcher matcher = NUMBER.matcher(name);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Lists the frame files in the directory.
+     *
+     * @param directory the directory of frames
+     * @return the frame files
+     * @throws IOException if an error occurs listing the directory
+     */
+    private static List<Entry> listDirectory(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(p -> Files.isRegularFile(p) && isFrame(p.getFileName().toString()))
+                    .map(p -> new Entry(p.getFileName().toString(), () -> Files.readAllBytes(p)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Lists the frame files in the ZIP archive, reading their contents. The
+     * archive is read sequentially, so only the decoding of its frames is done
+     * in parallel.
+     *
+     * @param archive the ZIP archive of frames
+     * @return the frame files
+     * @throws IOException if an error occurs reading the archive
+     */
+    private static List<Entry> listArchive(Path archive) throws IOException {
+        List<Entry> list = new ArrayList<>();
+        try (var input = new ZipInputStream(Files.newInputStream(archive))) {
+            ZipEntry entry = input.getNextEntry();
+            while (entry != null) {
+                String name = Path.of(entry.getName()).getFileName().toString();
+                if (!entry.isDirectory() && isFrame(name)) {
+                    byte[] bytes = input.readAllBytes();
+                    list.add(new Entry(name, () -> bytes));
+                }
+                entry = input.getNextEntry();
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Reads the next token of a PGM header, skipping white space and
+     * comments.
+     *
+     * @param data the contents of the PGM file
+     * @param position a one-element array holding the position in the data,
+     * updated to the character following the token
+     * @return the token
+     * @throws IOException if the header ends before the token
+     */
+    private static String nextToken(byte[] data, int[] position) throws IOException {
+        int i = position[0];
+        while (i < data.length && (Character.isWhitespace(data[i]) || data[i] == '#')) {
+            if (data[i] == '#') {
+                while (i < data.length && data[i] != '\n') {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+        int start = i;
+        while (i < data.length && !Character.isWhitespace(data[i])) {
+            i++;
+        }
+        if (start == i) {
+            throw new IOException("Unexpected end of PGM header");
+        }
+        position[0] = i;
+        return new String(data, start, i - start, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Decodes a PGM image in either the binary (P5) or ASCII (P2) format.
+     *
+     * @param data the contents of the PGM file
+     * @return the image in the INT_ARGB format
+     * @throws IOException if the data is not a valid PGM image
+     */
+    private static BufferedImage decodePgm(byte[] data) throws IOException {
+        int[] position = {0};
+        String magic = nextToken(data, position);
+        if (!magic.equals(PGM_BINARY) && !magic.equals(PGM_ASCII)) {
+            throw new IOException(String.format("Unsupported PGM format: %s", magic));
+        }
+        int width;
+        int height;
+        int maxval;
+        try {
+            width = Integer.parseInt(nextToken(data, position));
+            height = Integer.parseInt(nextToken(data, position));
+            maxval = Integer.parseInt(nextToken(data, position));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid PGM header", e);
+        }
+        if (width < 1 || height < 1 || maxval < 1 || maxval > PGM_MAXVAL_SHORT) {
+            throw new IOException(String.format(
+                    "Invalid PGM header: %d by %d, maximum %d", width, height, maxval));
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        boolean wide = maxval > PGM_MAXVAL_BYTE;
+        int offset = position[0] + 1;
+        if (magic.equals(PGM_BINARY) && offset + pixels.length * (wide ? 2 : 1) > data.length) {
+            throw new IOException("Unexpected end of PGM data");
+        }
+        for (int i = 0; i < pixels.length; i++) {
+            int value;
+            if (magic.equals(PGM_ASCII)) {
+                try {
+                    value = Integer.parseInt(nextToken(data, position));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid PGM data", e);
+                }
+            } else if (wide) {
+                value = (data[offset + 2 * i] & 0xFF) << 8 | data[offset + 2 * i + 1] & 0xFF;
+            } else {
+                value = data[offset + i] & 0xFF;
+            }
+            int gray = Math.min(value, maxval) * 0xFF / maxval;
+            pixels[i] = FrameGenerator.BLACK | gray << 16 | gray << 8 | gray;
+        }
+        return image;
+    }
+
+    /**
+     * Decodes a PNG image. The image is read through a stream cached in
+     * memory, because the default stream of {@link ImageIO#read} caches the
+     * data in a temporary file, which would serialize the decoding threads on
+     * the file system.
+     *
+     * @param name the file name of the frame
+     * @param data the contents of the PNG file
+     * @return the image in its original format
+     * @throws IOException if the data is not a valid PNG image
+     */
+    private static BufferedImage decodePng(String name, byte[] data) throws IOException {
+        ImageReader reader = ImageIO.getImageReadersByFormatName(PNG_FORMAT).next();
+        try (ImageInputStream stream = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            reader.setInput(stream, true, true);
+            return reader.read(0);
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException(String.format("Failed decoding PNG image: %s", name), e);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Decodes a PNG or PGM frame, converting it to the INT_ARGB format.
+     *
+     * @param name the file name of the frame
+     * @param data the contents of the file
+     * @return the frame in the INT_ARGB format
+     * @throws IOException if an error occurs decoding the frame
+     */
+    private static BufferedImage decode(String name, byte[] data) throws IOException {
+        BufferedImage image;
+        if (name.toLowerCase(Locale.ROOT).endsWith(PGM_SUFFIX)) {
+            image = decodePgm(data);
+        } else {
+            BufferedImage source = decodePng(name, data);
+            image = new BufferedImage(source.getWidth(), source.getHeight(),
+                    BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.drawImage(source, 0, 0, null);
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Reads the numbered frames in the directory or ZIP archive, decoding
+     * them in parallel.
+     *
+     * @param path the directory or ZIP archive of frames
+     * @return the list of frames in the INT_ARGB format, in numerical order
+     * @throws IOException if an error occurs reading or decoding a frame
+     * @throws IllegalArgumentException if there are no frames
+     */
+    static List<BufferedImage> read(Path path) throws IOException {
+        List<Entry> entries = Files.isDirectory(path) ? listDirectory(path) : listArchive(path);
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException(String.format(
+                    "No PNG or PGM frames found: %s", path));
+        }
+        entries.sort(Comparator.comparingLong((Entry e) -> getNumber(e.name))
+                .thenComparing(e -> e.name));
+
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), entries.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<BufferedImage>> futures = new ArrayList<>();
+            for (Entry entry : entries) {
+                futures.add(executor.submit(() -> decode(entry.name, entry.contents.call())));
+            }
+            List<BufferedImage> list = new ArrayList<>();
+            for (Future<BufferedImage> future : futures) {
+                list.add(future.get());
+            }
+            return list;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
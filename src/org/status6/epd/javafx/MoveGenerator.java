@@ -16,22 +16,17 @@
  */
 package org.status6.epd.javafx;
 
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-
 /**
- * An animation timer that displays a box moving across the screen from left to
+ * A frame generator that renders a box moving across the screen from left to
  * right, top to bottom.
  *
  * @author John Neffenger
  */
-class MoveAnimation extends FiniteAnimation {
+class MoveGenerator extends FrameGenerator {
 
     private static final int NUM_BOXES_LONG = 8;
     private static final int NUM_BOXES_SHORT = 6;
 
-    private final GraphicsContext graphics;
     private final int boxWidth;
     private final int boxHeight;
     private final int boxesPerWidth;
@@ -39,18 +34,16 @@ class MoveAnimation extends FiniteAnimation {
     private final int boxesPerScreen;
 
     private long count;
-    private double oldX;
-    private double oldY;
+    private DirtyRegion oldBox;
 
     /**
-     * Creates a new moving box animation.
+     * Creates a new moving box generator.
      *
-     * @param canvas the canvas on which to draw the animation
+     * @param width the width of each frame in pixels
+     * @param height the height of each frame in pixels
      */
-    MoveAnimation(Canvas canvas) {
-        graphics = canvas.getGraphicsContext2D();
-        int width = (int) canvas.getWidth();
-        int height = (int) canvas.getHeight();
+    MoveGenerator(int width, int height) {
+        super(width, height);
         boolean landscape = width > height;
         boxWidth = landscape ? width / NUM_BOXES_LONG : width / NUM_BOXES_SHORT;
         boxHeight = landscape ? height / NUM_BOXES_SHORT : height / NUM_BOXES_LONG;
@@ -65,17 +58,18 @@ class MoveAnimation extends FiniteAnimation {
     }
 
     @Override
-    public void handle(long now) {
-        double x = (count % boxesPerWidth) * boxWidth;
-        double y = ((count / boxesPerWidth) % boxesPerHeight) * boxHeight;
-        graphics.setFill(Color.BLACK);
-        graphics.fillRect(x, y, boxWidth, boxHeight);
+    DirtyRegion render(int[] raster) {
+        int x = (int) (count % boxesPerWidth) * boxWidth;
+        int y = (int) ((count / boxesPerWidth) % boxesPerHeight) * boxHeight;
+        DirtyRegion box = new DirtyRegion(x, y, boxWidth, boxHeight);
+        fill(raster, getWidth(), box, BLACK);
+        DirtyRegion region = box;
         if (count > 0) {
-            graphics.setFill(Color.WHITE);
-            graphics.fillRect(oldX, oldY, boxWidth, boxHeight);
+            fill(raster, getWidth(), oldBox, WHITE);
+            region = box.union(oldBox);
         }
-        oldX = x;
-        oldY = y;
+        oldBox = box;
         count++;
+        return region;
     }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A command-line program that renders the frames of an animation pattern
+ * offline, without the JavaFX toolkit, at full processor speed. It prints the
+ * rendering rate and the checksum of the frames, for use in benchmarks and
+ * regression tests. It accepts the same parameters as the {@link Animator}
+ * application, with the width and height defaulting to 800 by 600 pixels.
+ *
+ * @author John Neffenger
+ */
+public class OfflineRenderer {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000;
+    private static final long NANOS_PER_MILLIS = 1_000_000;
+
+    private static final int WIDTH_DEFAULT = 800;
+    private static final int HEIGHT_DEFAULT = 600;
+
+    /**
+     * Prevents instantiation of this command-line program.
+     */
+    private OfflineRenderer() {
+    }
+
+    /**
+     * Renders the frames of the animation pattern and prints the rendering
+     * rate and checksum.
+     *
+     * @param args the command line arguments in the format {@code --name=value}
+     * @throws IOException if an error occurs reading the image file
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> map = Arguments.getNamed(args);
+        int width = Arguments.getInteger(map, Arguments.WIDTH_KEY,
+                WIDTH_DEFAULT, Arguments.WIDTH_MINIMUM);
+        int height = Arguments.getInteger(map, Arguments.HEIGHT_KEY,
+                HEIGHT_DEFAULT, Arguments.HEIGHT_MINIMUM);
+        int pattern = Arguments.getInteger(map, Arguments.PATTERN_KEY,
+                Arguments.PATTERN_DEFAULT, Arguments.PATTERNS_SUPPORTED);
+        int levels = Arguments.getInteger(map, Arguments.LEVELS_KEY,
+                Arguments.LEVELS_DEFAULT, Arguments.LEVELS_SUPPORTED);
+        int loops = Arguments.getInteger(map, Arguments.LOOPS_KEY,
+                Arguments.LOOPS_DEFAULT, Arguments.LOOPS_MINIMUM);
+        String image = map.getOrDefault(Arguments.IMAGE_KEY, Arguments.IMAGE_DEFAULT);
+        boolean patrol = Boolean.valueOf(map.get(Arguments.PATROL_KEY));
+        boolean analyze = Boolean.valueOf(map.get(Arguments.ANALYZE_KEY));
+        boolean snap = Boolean.valueOf(map.get(Arguments.SNAP_KEY));
+        FrameAnalyzer analyzer = new FrameAnalyzer(analyze, snap);
+
+        FrameGenerator generator;
+        switch (pattern) {
+            case Arguments.PATTERN_MOVE:
+                generator = new MoveGenerator(width, height);
+                break;
+            case Arguments.PATTERN_SWEEP:
+                generator = new SweepGenerator(width, height, levels, analyzer);
+                break;
+            case Arguments.PATTERN_IMAGE:
+                generator = new ImageGenerator(image, patrol, analyzer);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format(
+                        "Unsupported pattern: %d", pattern));
+        }
+
+        int[] raster = generator.createRaster();
+        FrameChecksum checksum = new FrameChecksum(generator.getWidth(), 0);
+        /*
+         * Zero loops runs the application until it is closed, but there is no
+         * way to close this program, so it renders a single loop instead.
+         */
+        int number = generator.getNumFrames() * Math.max(loops, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < number; i++) {
+            checksum.update(raster, generator.getWidth(), generator.render(raster));
+        }
+        long duration = System.nanoTime() - start;
+
+        double seconds = (double) duration / NANOS_PER_SECOND;
+        double milliseconds = (double) duration / NANOS_PER_MILLIS;
+        System.out.println(String.format(
+                "Render rate: %d frames in %5.2f s = %5.0f fps (%.3f ms/frame)",
+                number, seconds, number / seconds, milliseconds / number));
+        checksum.report();
+        if (analyzer.isEnabled()) {
+            analyzer.report();
+        }
+    }
+}
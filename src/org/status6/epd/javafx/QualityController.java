@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An adaptive quality controller that lowers the quality of an animation when
+ * its display updates are too slow and raises it again when there is headroom.
+ * The controller measures the interval between the frames the animation
+ * renders, which includes the time the EPD platform blocks while the panel
+ * completes an update, and divides it by the number of pulses in the interval
+ * to obtain the latency per pulse. Lower gray levels and smaller areas shorten
+ * the panel updates, while rendering on fewer pulses spreads an update over
+ * more of them, so every step changes the latency. When the 90th percentile of
+ * the recent latencies exceeds the target, the controller steps down first the
+ * number of gray levels, then the size of the updated area, and finally the
+ * frame rate. It steps back up in the reverse order when the latency expected
+ * at the next higher step, computed from the same intervals with the pulses of
+ * that step, falls well below the target. Under a steady load, the controller
+ * therefore settles on one step instead of alternating between two rates.
+ *
+ * @implNote The interval spanning a pause of the animation is much longer
+ * than the others, but it is only the largest of its window, which the 90th
+ * percentile of ten intervals ignores.
+ *
+ * @author John Neffenger
+ */
+class QualityController implements FrameObserver {
+
+    private static final long NANOS_PER_MILLIS = 1_000_000;
+
+    /**
+     * The number of intervals measured before deciding on a step.
+     */
+    private static final int WINDOW = 10;
+
+    /**
+     * The percentile of the intervals compared with the target.
+     */
+    private static final int PERCENTILE = 90;
+
+    /**
+     * The fraction of the target below which the controller steps up.
+     */
+    private static final double HEADROOM = 0.7;
+
+    private static final int[] REDUCED_LEVELS = {4, 2};
+    private static final int[] REDUCED_AREAS = {50, 25};
+    private static final int[] REDUCED_RATES = {2, 3, 4};
+
+    /**
+     * A level of quality, with the number of gray levels, the percentage of
+     * the area updated, and the divisor of the frame rate.
+     */
+    private static class Step {
+
+        private final int levels;
+        private final int area;
+        private final int divisor;
+
+        private Step(int levels, int area, int divisor) {
+            this.levels = levels;
+            this.area = area;
+            this.divisor = divisor;
+        }
+    }
+
+    private final RasterAnimation animation;
+    private final long target;
+    private final List<Step> steps;
+    private final long[] intervals;
+
+    private int current;
+    private int count;
+    private long previous;
+
+    /**
+     * Creates a new adaptive quality controller.
+     *
+     * @param animation the animation to control
+     * @param levels the number of gray levels at full quality
+     * @param target the target for the 90th percentile of the update latency
+     * in milliseconds
+     */
+    QualityController(RasterAnimation animation, int levels, long target) {
+        this.animation = animation;
+        this.target = target * NANOS_PER_MILLIS;
+        steps = new ArrayList<>();
+        steps.add(new Step(levels, 100, 1));
+        int lowest = levels;
+        for (int reduced : REDUCED_LEVELS) {
+            if (reduced < lowest) {
+                lowest = reduced;
+                steps.add(new Step(lowest, 100, 1));
+            }
+        }
+        int smallest = 100;
+        for (int reduced : REDUCED_AREAS) {
+            smallest = reduced;
+            steps.add(new Step(lowest, smallest, 1));
+        }
+        for (int reduced : REDUCED_RATES) {
+            steps.add(new Step(lowest, smallest, reduced));
+        }
+        intervals = new long[WINDOW];
+    }
+
+    /**
+     * Gets the percentile of the intervals in the window.
+     *
+     * @return the interval at the percentile in nanoseconds
+     */
+    private long getPercentile() {
+        long[] sorted = Arrays.copyOf(intervals, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(PERCENTILE / 100.0 * count) - 1;
+        return sorted[index];
+    }
+
+    /**
+     * Applies a level of quality to the animation and prints the change.
+     *
+     * @param next the index of the next step
+     * @param p90 the latency per pulse that caused the change in nanoseconds
+     */
+    private void apply(int next, long p90) {
+        boolean down = next > current;
+        current = next;
+        Step step = steps.get(current);
+        FrameGenerator generator = animation.getGenerator();
+        generator.setGrayLevels(step.levels);
+        generator.setAreaPercent(step.area);
+        animation.setFrameDivisor(step.divisor);
+        System.out.println(String.format(
+                "Quality step %s: levels %d, area %d%%, rate 1/%d (p90 %d ms %s %d ms)",
+                down ? "down" : "up", step.levels, step.area, step.divisor,
+                p90 / NANOS_PER_MILLIS, down ? ">" : "<", target / NANOS_PER_MILLIS));
+    }
+
+    @Override
+    public void update(long now, int[] raster, int scanline, DirtyRegion region) {
+        if (previous != 0) {
+            intervals[count++] = now - previous;
+            if (count == WINDOW) {
+                long p90 = getPercentile();
+                long latency = p90 / steps.get(current).divisor;
+                if (latency > target && current < steps.size() - 1) {
+                    apply(current + 1, latency);
+                } else if (current > 0) {
+                    long expected = p90 / steps.get(current - 1).divisor;
+                    if (expected < HEADROOM * target) {
+                        apply(current - 1, expected);
+                    }
+                }
+                count = 0;
+            }
+        }
+        previous = now;
+    }
+}
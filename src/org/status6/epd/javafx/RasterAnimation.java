@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.Node;
+
+/**
+ * An abstract animation timer that displays the frames of a generator,
+ * rendering each frame into a raster and writing the modified region to a
+ * JavaFX node before notifying its observers.
+ *
+ * @author John Neffenger
+ */
+abstract class RasterAnimation extends FiniteAnimation {
+
+    private final Node node;
+    private final FrameGenerator generator;
+    private final List<FrameObserver> observers;
+    private final int[] raster;
+
+    private int divisor;
+    private long pulses;
+
+    /**
+     * Creates a new raster animation.
+     *
+     * @param node the node displaying the animation frames
+     * @param generator the generator of the animation frames
+     */
+    RasterAnimation(Node node, FrameGenerator generator) {
+        this.node = node;
+        this.generator = generator;
+        observers = new ArrayList<>();
+        raster = generator.createRaster();
+        divisor = 1;
+    }
+
+    /**
+     * Sets the frame rate of this animation as a fraction of the pulse rate.
+     *
+     * @param divisor render a frame on only one out of this number of pulses
+     */
+    void setFrameDivisor(int divisor) {
+        this.divisor = divisor;
+    }
+
+    /**
+     * Adds an observer of the frames in this animation.
+     *
+     * @param observer the frame observer
+     */
+    void addObserver(FrameObserver observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Gets the node displaying the frames in this animation, with the
+     * upper-left pixel of each frame at the origin of the node.
+     *
+     * @return the JavaFX node
+     */
+    Node getNode() {
+        return node;
+    }
+
+    /**
+     * Gets the generator of the frames in this animation.
+     *
+     * @return the frame generator
+     */
+    FrameGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Displays the region of the raster modified by the current frame.
+     *
+     * @param raster the pixels in the INT_ARGB format, with rows the width of
+     * a frame
+     * @param region the region modified by the frame
+     */
+    abstract void show(int[] raster, DirtyRegion region);
+
+    @Override
+    int getNumFrames() {
+        return generator.getNumFrames();
+    }
+
+    @Override
+    public void handle(long now) {
+        if (pulses++ % divisor == 0) {
+            DirtyRegion region = generator.render(raster);
+            if (region != null) {
+                show(raster, region);
+            }
+            for (FrameObserver observer : observers) {
+                observer.update(now, raster, generator.getWidth(), region);
+            }
+        }
+    }
+}
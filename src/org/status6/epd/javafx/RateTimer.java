@@ -16,16 +16,19 @@
  */
 package org.status6.epd.javafx;
 
-import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 
 /**
- * An animation timer that tracks the frame rate and logs its measurement each
- * time it completes the specified number of frames.
+ * A frame observer that tracks the frame rate and logs its measurement each
+ * time it completes the specified number of frames. The timer observes the
+ * frames the animation renders, so the rate excludes the pulses skipped when
+ * the animation renders on only a fraction of them. It is paused and resumed
+ * with the animation, so the rate also excludes the time the animation is
+ * stopped.
  *
  * @author John Neffenger
  */
-class RateTimer extends AnimationTimer {
+class RateTimer implements FrameObserver {
 
     private static final long NANOS_PER_SECOND = 1_000_000_000;
     private static final long NANOS_PER_MILLIS = 1_000_000;
@@ -34,6 +37,8 @@ class RateTimer extends AnimationTimer {
 
     private long begin;
     private long start;
+    private long stopped;
+    private boolean paused;
     private int count;
 
     /**
@@ -71,14 +76,42 @@ class RateTimer extends AnimationTimer {
         });
     }
 
-    @Override
-    public void stop() {
-        super.stop();
-        capture(System.nanoTime() - begin, count, "Total rate");
+    /**
+     * Logs the total frame rate measured so far, excluding the intervals in
+     * which the timer was paused.
+     */
+    void report() {
+        if (count > 0) {
+            capture((paused ? stopped : System.nanoTime()) - begin, count, "Total rate");
+        }
+    }
+
+    /**
+     * Pauses the timer and logs the total frame rate measured so far.
+     */
+    void pause() {
+        if (!paused) {
+            stopped = System.nanoTime();
+            paused = true;
+        }
+        report();
+    }
+
+    /**
+     * Resumes the timer, moving the start of the measurements forward by the
+     * time it was paused, so that the frame rates exclude the pause.
+     */
+    void resume() {
+        if (paused) {
+            long interval = System.nanoTime() - stopped;
+            begin += interval;
+            start += interval;
+            paused = false;
+        }
     }
 
     @Override
-    public void handle(long now) {
+    public void update(long now, int[] raster, int scanline, DirtyRegion region) {
         if (count % frames == 0) {
             if (count == 0) {
                 begin = now;
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * An animation timer that runs a soak test for the specified duration,
+ * sampling the heap after garbage collection, the resident memory of the
+ * process, the number of threads, and the frame rate at regular intervals.
+ * When the duration elapses, it prints a summary with the trend of each
+ * measurement, flags any upward trend in memory or threads or downward drift
+ * in the frame rate, and terminates the application. The resident memory
+ * includes the native memory allocated by the JavaFX graphics pipeline and
+ * windowing system, which the memory pools of the Java virtual machine do not
+ * report. The timer observes the frames of the animation to measure the frame
+ * rate, so the rate counts only the frames actually rendered, and not the
+ * pulses when the animation is reduced to a fraction of the pulse rate. The
+ * timer is paused and resumed with the animation, so the time paused counts
+ * toward neither the frame rate nor the duration of the test.
+ *
+ * @implNote The garbage collection before each heap sample runs on the JavaFX
+ * Application Thread and delays the frame in which the sample is taken, but
+ * the effect on the frame rate is small for intervals of a minute or more.
+ *
+ * @author John Neffenger
+ */
+class SoakTimer extends AnimationTimer implements FrameObserver {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000;
+    private static final double SECONDS_PER_HOUR = 3600.0;
+    private static final double BYTES_PER_MIB = 1024.0 * 1024.0;
+    private static final double BYTES_PER_KIB = 1024.0;
+    private static final Path STATUS_FILE = Path.of("/proc/self/status");
+    private static final String RESIDENT_FIELD = "VmRSS:";
+
+    /**
+     * The minimum number of samples for computing a trend.
+     */
+    private static final int MINIMUM_SAMPLES = 3;
+
+    /**
+     * The percentage change over the duration of the test that is flagged as
+     * a trend in the heap or drift in the frame rate.
+     */
+    private static final double DRIFT_PERCENT = 5.0;
+
+    /**
+     * The minimum heap growth in MiB that is flagged as a trend, ignoring
+     * fluctuations in small heaps.
+     */
+    private static final double HEAP_MINIMUM_MIB = 1.0;
+
+    private final long duration;
+    private final long interval;
+    private final MemoryMXBean memory;
+    private final ThreadMXBean threads;
+    private final List<double[]> samples;
+
+    private long begin;
+    private long last;
+    private long stopped;
+    private boolean paused;
+    private int count;
+    private long frames;
+    private long lastFrames;
+
+    /**
+     * Gets the slope of the least-squares line through the points.
+     *
+     * @param samples the list of samples
+     * @param x the index of the x-coordinate in each sample
+     * @param y the index of the y-coordinate in each sample
+     * @return the slope of the line
+     */
+    private static double slope(List<double[]> samples, int x, int y) {
+        int n = samples.size();
+        double sumX = 0;
+        double sumY = 0;
+        double sumXY = 0;
+        double sumXX = 0;
+        for (double[] sample : samples) {
+            sumX += sample[x];
+            sumY += sample[y];
+            sumXY += sample[x] * sample[y];
+            sumXX += sample[x] * sample[x];
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        return denominator == 0 ? 0 : (n * sumXY - sumX * sumY) / denominator;
+    }
+
+    /**
+     * Creates a new soak timer.
+     *
+     * @param seconds the duration of the soak test in seconds
+     * @param sample the interval between samples in seconds
+     */
+    SoakTimer(long seconds, long sample) {
+        duration = seconds * NANOS_PER_SECOND;
+        interval = sample * NANOS_PER_SECOND;
+        memory = ManagementFactory.getMemoryMXBean();
+        threads = ManagementFactory.getThreadMXBean();
+        samples = new ArrayList<>();
+    }
+
+    /**
+     * Gets the resident set size of this process from the Linux {@code /proc}
+     * file system.
+     *
+     * @return the resident memory in bytes, or {@code NaN} if it is not
+     * available
+     */
+    private static double getResidentSize() {
+        double size = Double.NaN;
+        try {
+            for (String line : Files.readAllLines(STATUS_FILE)) {
+                if (line.startsWith(RESIDENT_FIELD)) {
+                    String[] fields = line.substring(RESIDENT_FIELD.length()).trim().split("\\s+");
+                    size = Long.parseLong(fields[0]) * BYTES_PER_KIB;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println(e);
+        }
+        return size;
+    }
+
+    /**
+     * Takes a sample of the measurements and prints it.
+     *
+     * @param now the timestamp of the current frame in nanoseconds
+     */
+    private void sample(long now) {
+        memory.gc();
+        double seconds = (double) (now - begin) / NANOS_PER_SECOND;
+        double heap = memory.getHeapMemoryUsage().getUsed() / BYTES_PER_MIB;
+        double resident = getResidentSize() / BYTES_PER_MIB;
+        double threadCount = threads.getThreadCount();
+        double fps = (frames - lastFrames) / ((double) (now - last) / NANOS_PER_SECOND);
+        samples.add(new double[]{seconds, heap, resident, threadCount, fps});
+        System.out.println(String.format(
+                "Soak sample: %6.0f s, heap %7.2f MiB, resident %7.2f MiB, %3.0f threads, %5.2f fps",
+                seconds, heap, resident, threadCount, fps));
+    }
+
+    /**
+     * Prints the summary of the soak test, with the trend of each measurement
+     * per hour and any trends flagged as possible leaks or degradation.
+     */
+    private void summarize() {
+        System.out.println(String.format("Soak summary: %d samples", samples.size()));
+        if (samples.size() < MINIMUM_SAMPLES) {
+            System.out.println("Soak summary: too few samples for trends");
+        } else {
+            double hours = samples.get(samples.size() - 1)[0] / SECONDS_PER_HOUR;
+            double heapSlope = slope(samples, 0, 1) * SECONDS_PER_HOUR;
+            double residentSlope = slope(samples, 0, 2) * SECONDS_PER_HOUR;
+            double threadSlope = slope(samples, 0, 3) * SECONDS_PER_HOUR;
+            double fpsSlope = slope(samples, 0, 4) * SECONDS_PER_HOUR;
+            double[] first = samples.get(0);
+            System.out.println(String.format(
+                    "Soak summary: heap %+.2f MiB/h, resident %+.2f MiB/h, threads %+.1f/h, %+.3f fps/h",
+                    heapSlope, residentSlope, threadSlope, fpsSlope));
+            boolean flagged = false;
+            double heapGrowth = heapSlope * hours;
+            if (heapGrowth > HEAP_MINIMUM_MIB && heapGrowth > first[1] * DRIFT_PERCENT / 100) {
+                System.out.println(String.format(
+                        "Soak warning: heap grew %.2f MiB after garbage collection", heapGrowth));
+                flagged = true;
+            }
+            if (residentSlope * hours > first[2] * DRIFT_PERCENT / 100) {
+                System.out.println(String.format(
+                        "Soak warning: resident memory grew %.2f MiB", residentSlope * hours));
+                flagged = true;
+            }
+            if (threadSlope * hours >= 1) {
+                System.out.println(String.format(
+                        "Soak warning: thread count grew by %.1f", threadSlope * hours));
+                flagged = true;
+            }
+            if (-fpsSlope * hours > first[4] * DRIFT_PERCENT / 100) {
+                System.out.println(String.format(
+                        "Soak warning: frame rate drifted %.2f fps lower", -fpsSlope * hours));
+                flagged = true;
+            }
+            if (!flagged) {
+                System.out.println("Soak summary: no trends flagged");
+            }
+        }
+    }
+
+    /**
+     * Pauses the soak test along with the animation.
+     */
+    void pause() {
+        if (!paused) {
+            stop();
+            stopped = System.nanoTime();
+            paused = true;
+        }
+    }
+
+    /**
+     * Resumes the soak test, moving the start of the test and of the current
+     * sample interval forward by the time it was paused.
+     */
+    void resume() {
+        if (paused) {
+            long pause = System.nanoTime() - stopped;
+            begin += pause;
+            last += pause;
+            paused = false;
+            start();
+        }
+    }
+
+    @Override
+    public void update(long now, int[] raster, int scanline, DirtyRegion region) {
+        frames++;
+    }
+
+    @Override
+    public void handle(long now) {
+        if (count == 0) {
+            begin = now;
+            last = now;
+            lastFrames = frames;
+        } else if (now - last >= interval) {
+            sample(now);
+            last = now;
+            lastFrames = frames;
+        }
+        if (now - begin >= duration) {
+            stop();
+            summarize();
+            Platform.exit();
+        }
+        count++;
+    }
+}
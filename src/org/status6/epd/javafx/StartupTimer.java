@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+
+/**
+ * An animation timer that records the time of each startup event, from the
+ * start of the Java virtual machine to the first frame displayed, and logs the
+ * timeline after the first frame.
+ *
+ * @author John Neffenger
+ */
+class StartupTimer extends AnimationTimer {
+
+    private final List<String> events;
+    private final List<Long> times;
+
+    private int count;
+
+    /**
+     * Creates a new startup timer, recording the start time of the Java
+     * virtual machine when it is available.
+     */
+    StartupTimer() {
+        events = new ArrayList<>();
+        times = new ArrayList<>();
+        ProcessHandle.current().info().startInstant().ifPresent(
+                instant -> add("JVM start", instant.toEpochMilli()));
+    }
+
+    /**
+     * Adds the event to the timeline.
+     *
+     * @param event the name of the event
+     * @param time the time of the event in milliseconds since the epoch
+     */
+    private void add(String event, long time) {
+        events.add(event);
+        times.add(time);
+    }
+
+    /**
+     * Prints the timeline, with the time of each event relative to the first
+     * and to the previous event.
+     */
+    private void report() {
+        long first = times.get(0);
+        long previous = first;
+        for (int i = 0; i < events.size(); i++) {
+            long time = times.get(i);
+            System.out.println(String.format("Startup: %-12s at %5d ms (+%d ms)",
+                    events.get(i), time - first, time - previous));
+            previous = time;
+        }
+    }
+
+    /**
+     * Records the event at the current time.
+     *
+     * @param event the name of the event
+     */
+    void mark(String event) {
+        add(event, System.currentTimeMillis());
+    }
+
+    /**
+     * Records the first pulse and the first frame, then logs the timeline.
+     *
+     * @implNote The scene is rendered at the end of each pulse, and the next
+     * pulse waits for the rendering to complete, so the second pulse marks the
+     * time when the first frame is visible.
+     *
+     * @param now the timestamp of the current frame in nanoseconds
+     */
+    @Override
+    public void handle(long now) {
+        if (count == 0) {
+            mark("first pulse");
+        } else if (count == 1) {
+            mark("first frame");
+            stop();
+            report();
+        }
+        count++;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2019 John Glenn Neffenger
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.status6.epd.javafx;
+
+/**
+ * A frame generator that renders a box sweeping across the screen from left
+ * to right, top to bottom, alternating between grayscale boxes and all white
+ * boxes on each cycle.
+ *
+ * @author John Neffenger
+ */
+class SweepGenerator extends FrameGenerator {
+
+    private static final int NUM_BOXES_LONG = 8;
+    private static final int NUM_BOXES_SHORT = 6;
+
+    private final FrameAnalyzer analyzer;
+    private final int levels;
+    private final int whiteMask;
+    private final int boxWidth;
+    private final int boxHeight;
+    private final int boxesPerWidth;
+    private final int boxesPerHeight;
+    private final int boxesPerScreen;
+
+    private int[] grays;
+    private int[] masks;
+    private int percent;
+    private long count;
+    private int index;
+
+    /**
+     * Gets an array of grayscale values with the given number of gray levels.
+     *
+     * @param levels the number of gray levels
+     * @return an array of grayscale values in the INT_ARGB format
+     */
+    private static int[] getGrays(int levels) {
+        int[] grays;
+        switch (levels) {
+            case 2:
+                grays = new int[]{WHITE, BLACK};
+                break;
+            case 4:
+                grays = new int[]{WHITE, 0xFFAAAAAA, 0xFF555555, BLACK};
+                break;
+            case 16:
+                grays = new int[]{
+                    WHITE,
+                    0xFFEEEEEE,
+                    0xFFDDDDDD,
+                    0xFFCCCCCC,
+                    0xFFBBBBBB,
+                    0xFFAAAAAA,
+                    0xFF999999,
+                    0xFF888888,
+                    0xFF777777,
+                    0xFF666666,
+                    0xFF555555,
+                    0xFF444444,
+                    0xFF333333,
+                    0xFF222222,
+                    0xFF111111,
+                    BLACK
+                };
+                break;
+            default:
+                grays = new int[]{BLACK};
+                break;
+        }
+        return grays;
+    }
+
+    /**
+     * Creates a new sweeping box generator.
+     *
+     * @param width the width of each frame in pixels
+     * @param height the height of each frame in pixels
+     * @param levels the number of gray levels to draw on alternating cycles
+     * @param analyzer the analyzer of the gray levels in each update
+     */
+    SweepGenerator(int width, int height, int levels, FrameAnalyzer analyzer) {
+        super(width, height);
+        this.analyzer = analyzer;
+        this.levels = levels;
+        setGrays(levels);
+        percent = 100;
+        whiteMask = FrameAnalyzer.levels(WHITE);
+        boolean landscape = width > height;
+        boxWidth = landscape ? width / NUM_BOXES_LONG : width / NUM_BOXES_SHORT;
+        boxHeight = landscape ? height / NUM_BOXES_SHORT : height / NUM_BOXES_LONG;
+        boxesPerWidth = width / boxWidth;
+        boxesPerHeight = height / boxHeight;
+        boxesPerScreen = boxesPerWidth * boxesPerHeight;
+    }
+
+    /**
+     * Sets the grayscale values drawn on alternating cycles.
+     *
+     * @param number the number of gray levels
+     */
+    private void setGrays(int number) {
+        grays = getGrays(number);
+        masks = new int[grays.length];
+        for (int i = 0; i < grays.length; i++) {
+            grays[i] = analyzer.snap(grays[i]);
+            masks[i] = FrameAnalyzer.levels(grays[i]);
+        }
+        index = index < grays.length ? index : 0;
+    }
+
+    /**
+     * {@inheritDoc} This generator draws no more than the number of gray
+     * levels it was created with.
+     */
+    @Override
+    void setGrayLevels(int levels) {
+        setGrays(Math.min(levels, this.levels));
+    }
+
+    /**
+     * {@inheritDoc} This generator draws smaller gray boxes centered in their
+     * usual positions, while the white boxes still erase the full area of
+     * each box.
+     */
+    @Override
+    void setAreaPercent(int percent) {
+        this.percent = percent;
+    }
+
+    @Override
+    int getNumFrames() {
+        return boxesPerScreen;
+    }
+
+    @Override
+    DirtyRegion render(int[] raster) {
+        int x = (int) (count % boxesPerWidth) * boxWidth;
+        int y = (int) ((count / boxesPerWidth) % boxesPerHeight) * boxHeight;
+        boolean even = (count / boxesPerScreen) % 2 == 0;
+        DirtyRegion box = new DirtyRegion(x, y, boxWidth, boxHeight);
+        if (even) {
+            box = box.scale(percent);
+        }
+        fill(raster, getWidth(), box, even ? grays[index] : WHITE);
+        analyzer.record(even ? masks[index] : whiteMask);
+        index = index < grays.length - 1 ? index + 1 : 0;
+        count++;
+        return box;
+    }
+}